@@ -0,0 +1,250 @@
+/*
+ * Copyright Jordan LEFEBURE © 2019.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.jlefebure.spring.boot.minio;
+
+import io.minio.StatObjectResponse;
+import io.minio.messages.Item;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous variant of {@link MinioService}. Each method runs the matching method of {@link MinioService} on a
+ * dedicated executor, configured with {@code spring.minio.async.*} properties, and returns a {@link CompletableFuture}.
+ * Futures are completed exceptionally with the exception thrown by {@link MinioService}.
+ *
+ * @author Jordan LEFEBURE
+ */
+@Service
+public class MinioAsyncService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MinioAsyncService.class);
+
+    private final MinioService minioService;
+    private final ExecutorService executor;
+
+    @Autowired
+    public MinioAsyncService(MinioService minioService, MinioConfigurationProperties configurationProperties) {
+        this.minioService = minioService;
+        this.executor = createExecutor(configurationProperties.getAsync());
+    }
+
+    /**
+     * Create a virtual thread per task executor if asked and available (JDK 21+), or a bounded thread pool otherwise.
+     */
+    private static ExecutorService createExecutor(MinioConfigurationProperties.Async properties) {
+        if (properties.isVirtualThreads()) {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                LOGGER.warn("Virtual threads are not available on this JVM, using a thread pool for asynchronous Minio operations");
+            }
+        }
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                properties.getThreads(),
+                properties.getThreads(),
+                properties.getKeepAlive().toMillis(),
+                TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                new CustomizableThreadFactory("minio-async-")
+        );
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * @see MinioService#list()
+     */
+    public CompletableFuture<List<Item>> list() {
+        return supply(minioService::list);
+    }
+
+    /**
+     * @see MinioService#fullList()
+     */
+    public CompletableFuture<List<Item>> fullList() {
+        return supply(minioService::fullList);
+    }
+
+    /**
+     * @see MinioService#list(Path)
+     */
+    public CompletableFuture<List<Item>> list(Path path) {
+        return supply(() -> minioService.list(path));
+    }
+
+    /**
+     * @see MinioService#getFullList(Path)
+     */
+    public CompletableFuture<List<Item>> getFullList(Path path) {
+        return supply(() -> minioService.getFullList(path));
+    }
+
+    /**
+     * @see MinioService#get(Path)
+     */
+    public CompletableFuture<InputStream> get(Path path) {
+        return supply(() -> minioService.get(path));
+    }
+
+    /**
+     * @see MinioService#getMetadata(Path)
+     */
+    public CompletableFuture<StatObjectResponse> getMetadata(Path path) {
+        return supply(() -> minioService.getMetadata(path));
+    }
+
+    /**
+     * @see MinioService#getMetadata(Iterable)
+     */
+    public CompletableFuture<Map<Path, StatObjectResponse>> getMetadata(Iterable<Path> paths) {
+        return supply(() -> minioService.getMetadata(paths));
+    }
+
+    /**
+     * @see MinioService#getMetadataBatch(Iterable)
+     */
+    public CompletableFuture<MinioBatchResult<StatObjectResponse>> getMetadataBatch(Iterable<Path> paths) {
+        return supply(() -> minioService.getMetadataBatch(paths));
+    }
+
+    /**
+     * @see MinioService#getAndSave(Path, String)
+     */
+    public CompletableFuture<Void> getAndSave(Path source, String fileName) {
+        return run(() -> minioService.getAndSave(source, fileName));
+    }
+
+    /**
+     * @see MinioService#upload(Path, InputStream, Map)
+     */
+    public CompletableFuture<Void> upload(Path source, InputStream file, Map<String, String> headers) {
+        return run(() -> minioService.upload(source, file, headers));
+    }
+
+    /**
+     * @see MinioService#upload(Path, InputStream)
+     */
+    public CompletableFuture<Void> upload(Path source, InputStream file) {
+        return run(() -> minioService.upload(source, file));
+    }
+
+    /**
+     * @see MinioService#upload(Path, InputStream, String, Map)
+     */
+    public CompletableFuture<Void> upload(Path source, InputStream file, String contentType, Map<String, String> headers) {
+        return run(() -> minioService.upload(source, file, contentType, headers));
+    }
+
+    /**
+     * @see MinioService#upload(Path, InputStream, String)
+     */
+    public CompletableFuture<Void> upload(Path source, InputStream file, String contentType) {
+        return run(() -> minioService.upload(source, file, contentType));
+    }
+
+    /**
+     * @see MinioService#uploadStream(Path, InputStream, String, Map)
+     */
+    public CompletableFuture<Void> uploadStream(Path source, InputStream file, String contentType, Map<String, String> headers) {
+        return run(() -> minioService.uploadStream(source, file, contentType, headers));
+    }
+
+    /**
+     * @see MinioService#upload(Path, File)
+     */
+    public CompletableFuture<Void> upload(Path source, File file) {
+        return run(() -> minioService.upload(source, file));
+    }
+
+    /**
+     * @see MinioService#remove(Path)
+     */
+    public CompletableFuture<Void> remove(Path source) {
+        return run(() -> minioService.remove(source));
+    }
+
+    /**
+     * @see MinioService#remove(Iterable)
+     */
+    public CompletableFuture<Map<Path, Exception>> remove(Iterable<Path> sources) {
+        return supply(() -> minioService.remove(sources));
+    }
+
+    /**
+     * @see MinioService#removePrefix(Path)
+     */
+    public CompletableFuture<Map<Path, Exception>> removePrefix(Path prefix) {
+        return supply(() -> minioService.removePrefix(prefix));
+    }
+
+    /**
+     * Stop the executor when the application context is closed.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private CompletableFuture<Void> run(Operation operation) {
+        return supply(() -> {
+            operation.run();
+            return null;
+        });
+    }
+
+    private <T> CompletableFuture<T> supply(Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Callable<T> wrapped = minioService.propagate(task);
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(wrapped.call());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Operation of {@link MinioService} without result.
+     */
+    @FunctionalInterface
+    private interface Operation {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright Jordan LEFEBURE © 2019.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.jlefebure.spring.boot.minio;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Result of an operation on a batch of objects. Failures of some objects do not abort the batch : the result holds
+ * the values of all succeeded objects and the error of all failed ones.
+ *
+ * @param <T> Type of the value returned for each object
+ * @author Jordan LEFEBURE
+ */
+public class MinioBatchResult<T> {
+
+    private final Map<Path, T> results;
+    private final Map<Path, Exception> errors;
+
+    public MinioBatchResult(Map<Path, T> results, Map<Path, Exception> errors) {
+        this.results = Collections.unmodifiableMap(results);
+        this.errors = Collections.unmodifiableMap(errors);
+    }
+
+    /**
+     * @return A map where paths of succeeded objects are keys
+     */
+    public Map<Path, T> getResults() {
+        return results;
+    }
+
+    /**
+     * @return A map where paths of failed objects are keys and errors are values
+     */
+    public Map<Path, Exception> getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return True if no object of the batch failed
+     */
+    public boolean isSuccessful() {
+        return errors.isEmpty();
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright Jordan LEFEBURE © 2019.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.jlefebure.spring.boot.minio;
+
+import io.minio.BucketExistsArgs;
+import io.minio.MakeBucketArgs;
+import io.minio.MinioClient;
+import io.minio.errors.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Check that the bucket exists, and create it if allowed. By default, the bucket is checked while creating the Minio
+ * client, and the application does not start if the check fails. With {@code spring.minio.defer-bucket-check}, the
+ * bucket and the buckets of the targets of {@link MinioTargets} are checked in background once the application is
+ * ready. Each check is retried with an exponential backoff until it succeeds or
+ * {@code spring.minio.bucket-check.max-attempts} is reached. {@link MinioHealthIndicator} reports the buckets out of
+ * service until then.
+ *
+ * @author Jordan LEFEBURE
+ */
+@Component
+public class MinioBucketVerifier {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MinioBucketVerifier.class);
+
+    /**
+     * Minimum delay between two attempts, in milliseconds, so a zero backoff does not retry in a tight loop
+     */
+    private static final long MIN_BACKOFF = 100;
+
+    public enum State {
+        /**
+         * The bucket has not been checked yet, or the check is retried.
+         */
+        PENDING,
+        /**
+         * The bucket exists.
+         */
+        VERIFIED,
+        /**
+         * All attempts failed.
+         */
+        FAILED
+    }
+
+    private final MinioConfigurationProperties minioConfigurationProperties;
+    private final Map<String, Check> checks = new LinkedHashMap<>();
+    private final long maxBackoff;
+    private final ScheduledExecutorService scheduler;
+    private volatile boolean started;
+
+    @Autowired
+    public MinioBucketVerifier(MinioClient minioClient, MinioConfigurationProperties minioConfigurationProperties,
+                               MinioTargets targets) {
+        this.minioConfigurationProperties = minioConfigurationProperties;
+        // Checks are already done while creating the clients if not deferred
+        State initialState = isDeferred() ? State.PENDING : State.VERIFIED;
+        long initialBackoff = Math.max(MIN_BACKOFF, minioConfigurationProperties.getBucketCheck().getInitialBackoff().toMillis());
+        this.maxBackoff = Math.max(initialBackoff, minioConfigurationProperties.getBucketCheck().getMaxBackoff().toMillis());
+        checks.put(MinioTargets.DEFAULT, new Check(MinioTargets.DEFAULT, minioClient, minioConfigurationProperties.getBucket(), initialState, initialBackoff));
+        for (String name : targets.getNames()) {
+            checks.put(name, new Check(name, targets.getClient(name), minioConfigurationProperties.getTargets().get(name).getBucket(),
+                    initialState, initialBackoff));
+        }
+        this.scheduler = isDeferred()
+                ? Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("minio-bucket-check-"))
+                : null;
+    }
+
+    /**
+     * Check the buckets in background once the application is ready, if the check is deferred.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (scheduler != null && !started) {
+            started = true;
+            checks.values().forEach(check -> scheduler.execute(() -> attempt(check)));
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private void attempt(Check check) {
+        int attempts = ++check.attempts;
+        try {
+            checkBucket(check.minioClient, check.bucket, minioConfigurationProperties.isCreateBucket());
+            check.lastError = null;
+            check.state = State.VERIFIED;
+            LOGGER.info("Bucket {} verified after {} attempt(s)", check.bucket, attempts);
+        } catch (Exception e) {
+            check.lastError = e;
+            int maxAttempts = minioConfigurationProperties.getBucketCheck().getMaxAttempts();
+            if (maxAttempts > 0 && attempts >= maxAttempts) {
+                check.state = State.FAILED;
+                LOGGER.error("Bucket {} could not be verified after {} attempts", check.bucket, attempts, e);
+                return;
+            }
+            long delay = ThreadLocalRandom.current().nextLong(check.backoff / 2, check.backoff + 1);
+            if (attempts == 1) {
+                LOGGER.warn("Bucket {} could not be verified, retrying in {} ms", check.bucket, delay, e);
+            } else {
+                // The stack trace was logged on the first failure
+                LOGGER.warn("Bucket {} could not be verified after {} attempts, retrying in {} ms: {}",
+                        check.bucket, attempts, delay, e.toString());
+            }
+            check.backoff = Math.min(maxBackoff, check.backoff * 2);
+            scheduler.schedule(() -> attempt(check), delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * @return true if the buckets are checked in background instead of while creating the clients
+     */
+    public boolean isDeferred() {
+        return minioConfigurationProperties.isCheckBucket() && minioConfigurationProperties.isDeferBucketCheck();
+    }
+
+    /**
+     * @return {@link State#FAILED} if a bucket failed its check, {@link State#PENDING} if a bucket is not verified yet,
+     * {@link State#VERIFIED} otherwise
+     */
+    public State getState() {
+        State state = State.VERIFIED;
+        for (Check check : checks.values()) {
+            if (check.state == State.FAILED) {
+                return State.FAILED;
+            }
+            if (check.state == State.PENDING) {
+                state = State.PENDING;
+            }
+        }
+        return state;
+    }
+
+    /**
+     * @return Checks of the default bucket, named {@link MinioTargets#DEFAULT}, and of the buckets of the targets, by name
+     */
+    public Map<String, Check> getChecks() {
+        return Collections.unmodifiableMap(checks);
+    }
+
+    /**
+     * Check of the bucket of the default client or of a target.
+     */
+    public static class Check {
+        private final String name;
+        private final MinioClient minioClient;
+        private final String bucket;
+        private volatile State state;
+        private volatile int attempts;
+        private volatile Exception lastError;
+        private long backoff;
+
+        private Check(String name, MinioClient minioClient, String bucket, State state, long backoff) {
+            this.name = name;
+            this.minioClient = minioClient;
+            this.bucket = bucket;
+            this.state = state;
+            this.backoff = backoff;
+        }
+
+        /**
+         * @return {@link MinioTargets#DEFAULT}, or the name of the target
+         */
+        public String getName() {
+            return name;
+        }
+
+        public String getBucket() {
+            return bucket;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        /**
+         * @return Number of attempts of the deferred check
+         */
+        public int getAttempts() {
+            return attempts;
+        }
+
+        /**
+         * @return Error of the last failed attempt, or null
+         */
+        public Exception getLastError() {
+            return lastError;
+        }
+    }
+
+    /**
+     * Check that the bucket of the properties exists, and create it if allowed.
+     */
+    static void checkBucket(MinioClient minioClient, MinioConfigurationProperties minioConfigurationProperties) throws IOException, InvalidKeyException, NoSuchAlgorithmException, InsufficientDataException, InternalException, ErrorResponseException, InvalidResponseException, MinioException, XmlParserException, ServerException {
+        checkBucket(minioClient, minioConfigurationProperties.getBucket(), minioConfigurationProperties.isCreateBucket());
+    }
+
+    /**
+     * Check that a bucket exists, and create it if allowed. Errors are thrown without being logged.
+     */
+    static void checkBucket(MinioClient minioClient, String bucket, boolean createBucket) throws IOException, InvalidKeyException, NoSuchAlgorithmException, InsufficientDataException, InternalException, ErrorResponseException, InvalidResponseException, MinioException, XmlParserException, ServerException {
+        LOGGER.debug("Checking if bucket {} exists", bucket);
+        BucketExistsArgs existsArgs = BucketExistsArgs.builder()
+                .bucket(bucket)
+                .build();
+        boolean b = minioClient.bucketExists(existsArgs);
+        if (!b) {
+            if (createBucket) {
+                try {
+                    MakeBucketArgs makeBucketArgs = MakeBucketArgs.builder()
+                            .bucket(bucket)
+                            .build();
+                    minioClient.makeBucket(makeBucketArgs);
+                } catch (Exception e) {
+                    throw new MinioException("Cannot create bucket", e);
+                }
+            } else {
+                throw new IllegalStateException("Bucket does not exist: " + bucket);
+            }
+        }
+    }
+}
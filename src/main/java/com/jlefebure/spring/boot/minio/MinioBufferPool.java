@@ -0,0 +1,82 @@
+/*
+ * Copyright Jordan LEFEBURE © 2019.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.jlefebure.spring.boot.minio;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Pool of fixed-size byte buffers used to hold parts of a multipart upload.
+ * Buffers are allocated lazily and reused, and no more than {@code maxBuffers} buffers exist at any time :
+ * callers block on {@link #acquire()} until a buffer is given back.
+ *
+ * @author Jordan LEFEBURE
+ */
+class MinioBufferPool {
+
+    private final int bufferSize;
+    private final Semaphore permits;
+    private final ConcurrentLinkedQueue<byte[]> buffers = new ConcurrentLinkedQueue<>();
+
+    MinioBufferPool(int bufferSize, int maxBuffers) {
+        this.bufferSize = bufferSize;
+        this.permits = new Semaphore(maxBuffers, true);
+    }
+
+    int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Take a buffer from the pool, waiting if all buffers are in use.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    byte[] acquire() throws InterruptedException {
+        permits.acquire();
+        byte[] buffer = buffers.poll();
+        return buffer != null ? buffer : new byte[bufferSize];
+    }
+
+    /**
+     * Give back a buffer previously taken with {@link #acquire()}.
+     */
+    void release(byte[] buffer) {
+        buffers.offer(buffer);
+        permits.release();
+    }
+
+    /**
+     * Fill the buffer from the stream until it is full or the end of the stream is reached.
+     *
+     * @return The number of bytes read, which is lower than the buffer size only at the end of the stream
+     * @throws IOException if the stream cannot be read
+     */
+    static int readFully(InputStream stream, byte[] buffer) throws IOException {
+        int total = 0;
+        while (total < buffer.length) {
+            int read = stream.read(buffer, total, buffer.length - total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+}
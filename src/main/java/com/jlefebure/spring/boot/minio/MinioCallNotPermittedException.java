@@ -0,0 +1,29 @@
+/*
+ * Copyright Jordan LEFEBURE © 2019.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.jlefebure.spring.boot.minio;
+
+
+/**
+ * Runtime exception thrown when a call to Minio is rejected without being sent, because the circuit breaker of the
+ * bucket is open or too many calls are running on the bucket.
+ * @author Jordan LEFEBURE
+ */
+public class MinioCallNotPermittedException extends MinioFetchException {
+    public MinioCallNotPermittedException(String message) {
+        super(message, null);
+    }
+}
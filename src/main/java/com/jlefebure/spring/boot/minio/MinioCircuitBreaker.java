@@ -0,0 +1,270 @@
+/*
+ * Copyright Jordan LEFEBURE © 2019.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.jlefebure.spring.boot.minio;
+
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Circuit breaker and bulkhead of the calls to the bucket of a target.
+ * <p>
+ * The outcome of the last {@code window-size} calls is recorded. When the rate of failed calls or of slow calls
+ * exceeds its threshold, the circuit opens and calls are rejected for {@code wait-duration-in-open-state}. The circuit
+ * is then half-open : a few trial calls are permitted, and the circuit closes if their rates are below the thresholds,
+ * or opens again otherwise. Only server and network errors are failures, a missing object is a success.
+ * <p>
+ * Independently of the state, at most {@code max-concurrent-calls} calls run at the same time on the bucket.
+ *
+ * @author Jordan LEFEBURE
+ */
+public class MinioCircuitBreaker {
+
+    /**
+     * State of a circuit breaker
+     */
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * Listener notified of the creation, the state transitions and the rejected calls of circuit breakers.
+     */
+    public interface Listener {
+
+        /**
+         * Called when the circuit breaker of a target is created, or when the listener is added for the circuit
+         * breakers created before. It may be called twice for a circuit breaker created while the listener is added.
+         *
+         * @param circuitBreaker The circuit breaker
+         */
+        default void onCreated(MinioCircuitBreaker circuitBreaker) {
+        }
+
+        /**
+         * Called when a circuit breaker changes of state.
+         *
+         * @param circuitBreaker The circuit breaker
+         * @param from           Previous state
+         * @param to             New state
+         */
+        void onStateTransition(MinioCircuitBreaker circuitBreaker, State from, State to);
+
+        /**
+         * Called when a call is rejected.
+         *
+         * @param circuitBreaker The circuit breaker
+         * @param reason         {@code open} if the circuit is not closed, {@code bulkhead} if too many calls are running
+         */
+        void onRejected(MinioCircuitBreaker circuitBreaker, String reason);
+    }
+
+    private static final int FAILURE = 1;
+    private static final int SLOW = 2;
+
+    private final String target;
+    private final String bucket;
+    private final List<Listener> listeners;
+    private final float failureRateThreshold;
+    private final float slowCallRateThreshold;
+    private final long slowCallDuration;
+    private final int minimumCalls;
+    private final long waitDurationInOpenState;
+    private final int permittedCallsInHalfOpenState;
+    private final Semaphore bulkhead;
+    private final long maxWait;
+
+    /**
+     * Outcomes of the last calls, as a ring buffer of FAILURE and SLOW flags
+     */
+    private final byte[] outcomes;
+    private int index;
+    private int calls;
+    private int failures;
+    private int slowCalls;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int halfOpenPermits;
+
+    MinioCircuitBreaker(String target, String bucket, MinioConfigurationProperties.CircuitBreaker properties, List<Listener> listeners) {
+        this.target = target;
+        this.bucket = bucket;
+        this.listeners = listeners;
+        this.failureRateThreshold = properties.getFailureRateThreshold();
+        this.slowCallRateThreshold = properties.getSlowCallRateThreshold();
+        this.slowCallDuration = properties.getSlowCallDuration().toNanos();
+        this.minimumCalls = Math.max(1, Math.min(properties.getMinimumCalls(), properties.getWindowSize()));
+        this.waitDurationInOpenState = properties.getWaitDurationInOpenState().toNanos();
+        this.permittedCallsInHalfOpenState = Math.max(1, properties.getPermittedCallsInHalfOpenState());
+        this.bulkhead = properties.getMaxConcurrentCalls() > 0 ? new Semaphore(properties.getMaxConcurrentCalls()) : null;
+        this.maxWait = properties.getMaxWait().toNanos();
+        this.outcomes = new byte[properties.getWindowSize()];
+    }
+
+    /**
+     * Ask for the permission to send a call. The call must then be reported with {@link #onComplete(long, Throwable)}.
+     *
+     * @return Start time of the call
+     * @throws MinioCallNotPermittedException if the circuit is open or too many calls are running
+     * @throws InterruptedException           if interrupted while waiting for a running call to complete
+     */
+    long acquire() throws InterruptedException {
+        if (!tryAcquireState()) {
+            listeners.forEach(listener -> listener.onRejected(this, "open"));
+            throw new MinioCallNotPermittedException("Circuit breaker of bucket " + bucket + " is " + getState());
+        }
+        if (bulkhead != null && !bulkhead.tryAcquire(maxWait, TimeUnit.NANOSECONDS)) {
+            releaseState();
+            listeners.forEach(listener -> listener.onRejected(this, "bulkhead"));
+            throw new MinioCallNotPermittedException("Too many concurrent calls on bucket " + bucket);
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Report the outcome of a call permitted by {@link #acquire()}.
+     *
+     * @param start Start time returned by {@link #acquire()}
+     * @param error Error of the call, or null if it succeeded
+     */
+    void onComplete(long start, Throwable error) {
+        onComplete(start, error, true);
+    }
+
+    /**
+     * Report the outcome of a call permitted by {@link #acquire()}.
+     *
+     * @param start Start time returned by {@link #acquire()}
+     * @param error Error of the call, or null if it succeeded
+     * @param timed Whether the call is slow if it lasted more than {@code slow-call-duration}. Calls transferring a
+     *              whole object take as long as the object is large, and are not timed.
+     */
+    void onComplete(long start, Throwable error, boolean timed) {
+        if (bulkhead != null) {
+            bulkhead.release();
+        }
+        int outcome = 0;
+        if (error != null && MinioRetryPolicy.isRetryable(error)) {
+            outcome |= FAILURE;
+        }
+        if (timed && System.nanoTime() - start > slowCallDuration) {
+            outcome |= SLOW;
+        }
+        record(outcome);
+    }
+
+    private synchronized boolean tryAcquireState() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < waitDurationInOpenState) {
+                return false;
+            }
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits == 0) {
+                return false;
+            }
+            halfOpenPermits--;
+        }
+        return true;
+    }
+
+    private synchronized void releaseState() {
+        if (state == State.HALF_OPEN) {
+            halfOpenPermits++;
+        }
+    }
+
+    private synchronized void record(int outcome) {
+        if (state == State.OPEN) {
+            // A call started before the circuit opened
+            return;
+        }
+        if (calls == outcomes.length) {
+            int evicted = outcomes[index];
+            failures -= evicted & FAILURE;
+            slowCalls -= (evicted & SLOW) >> 1;
+        } else {
+            calls++;
+        }
+        outcomes[index] = (byte) outcome;
+        index = (index + 1) % outcomes.length;
+        failures += outcome & FAILURE;
+        slowCalls += (outcome & SLOW) >> 1;
+
+        int threshold = state == State.HALF_OPEN ? permittedCallsInHalfOpenState : minimumCalls;
+        if (calls < threshold) {
+            return;
+        }
+        if (getFailureRate() >= failureRateThreshold || getSlowCallRate() >= slowCallRateThreshold) {
+            transition(State.OPEN);
+        } else if (state == State.HALF_OPEN) {
+            transition(State.CLOSED);
+        }
+    }
+
+    private void transition(State to) {
+        State from = state;
+        state = to;
+        calls = 0;
+        index = 0;
+        failures = 0;
+        slowCalls = 0;
+        if (to == State.OPEN) {
+            openedAt = System.nanoTime();
+        }
+        halfOpenPermits = to == State.HALF_OPEN ? permittedCallsInHalfOpenState : 0;
+        listeners.forEach(listener -> listener.onStateTransition(this, from, to));
+    }
+
+    /**
+     * @return {@link MinioTargets#DEFAULT}, or the name of the target
+     */
+    public String getTarget() {
+        return target;
+    }
+
+    public String getBucket() {
+        return bucket;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * @return Percentage of failed calls in the window, or 0 if no call has been recorded
+     */
+    public synchronized float getFailureRate() {
+        return calls == 0 ? 0 : failures * 100f / calls;
+    }
+
+    /**
+     * @return Percentage of slow calls in the window, or 0 if no call has been recorded
+     */
+    public synchronized float getSlowCallRate() {
+        return calls == 0 ? 0 : slowCalls * 100f / calls;
+    }
+
+    /**
+     * @return Number of calls which can still be started before the bulkhead is full, or -1 if there is no bulkhead
+     */
+    public int getAvailableConcurrentCalls() {
+        return bulkhead == null ? -1 : bulkhead.availablePermits();
+    }
+}
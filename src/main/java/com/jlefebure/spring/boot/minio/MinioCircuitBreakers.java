@@ -0,0 +1,88 @@
+/*
+ * Copyright Jordan LEFEBURE © 2019.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.jlefebure.spring.boot.minio;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Circuit breakers used by {@link MinioService}, one for the default bucket and one per target, configured with
+ * {@code spring.minio.circuit-breaker.*}. Targets are kept apart even when they use the same bucket name on different
+ * endpoints.
+ *
+ * @author Jordan LEFEBURE
+ */
+@Component
+@ConditionalOnProperty(prefix = "spring.minio.circuit-breaker", name = "enabled", havingValue = "true")
+public class MinioCircuitBreakers {
+
+    private final MinioConfigurationProperties.CircuitBreaker properties;
+    private final ConcurrentMap<String, MinioCircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+    private final List<MinioCircuitBreaker.Listener> listeners = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    public MinioCircuitBreakers(MinioConfigurationProperties minioConfigurationProperties) {
+        this.properties = minioConfigurationProperties.getCircuitBreaker();
+    }
+
+    /**
+     * Get the circuit breaker of a target, created on first use.
+     *
+     * @param target {@link MinioTargets#DEFAULT}, or the name of the target
+     * @param bucket Bucket of the target
+     * @return The circuit breaker of the target
+     */
+    public MinioCircuitBreaker get(String target, String bucket) {
+        MinioCircuitBreaker circuitBreaker = circuitBreakers.get(target);
+        if (circuitBreaker == null) {
+            MinioCircuitBreaker created = new MinioCircuitBreaker(target, bucket, properties, listeners);
+            circuitBreaker = circuitBreakers.putIfAbsent(target, created);
+            if (circuitBreaker == null) {
+                listeners.forEach(listener -> listener.onCreated(created));
+                circuitBreaker = created;
+            }
+        }
+        return circuitBreaker;
+    }
+
+    /**
+     * @return The circuit breakers of all targets created so far
+     */
+    public Collection<MinioCircuitBreaker> getAll() {
+        return Collections.unmodifiableList(new ArrayList<>(circuitBreakers.values()));
+    }
+
+    /**
+     * Register a listener notified by the circuit breakers of all targets. It is notified at once of the circuit
+     * breakers already created.
+     *
+     * @param listener The listener
+     */
+    public void addListener(MinioCircuitBreaker.Listener listener) {
+        listeners.add(listener);
+        circuitBreakers.values().forEach(listener::onCreated);
+    }
+}
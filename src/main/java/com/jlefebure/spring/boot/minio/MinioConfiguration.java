@@ -16,13 +16,14 @@
 
 package com.jlefebure.spring.boot.minio;
 
-import io.minio.BucketExistsArgs;
-import io.minio.MakeBucketArgs;
 import io.minio.MinioClient;
 import io.minio.errors.*;
+import okhttp3.ConnectionPool;
 import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
@@ -35,6 +36,9 @@ import java.net.InetSocketAddress;
 import java.net.Proxy;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 @ConditionalOnClass(MinioClient.class)
@@ -47,49 +51,21 @@ public class MinioConfiguration {
     @Autowired
     private MinioConfigurationProperties minioConfigurationProperties;
 
+    @Autowired
+    private ObjectProvider<MinioHttpClientCustomizer> httpClientCustomizers;
+
     @Bean
     public MinioClient minioClient() throws IOException, InvalidKeyException, NoSuchAlgorithmException, InsufficientDataException, InternalException, ErrorResponseException, InvalidResponseException, MinioException, XmlParserException, ServerException {
 
-        MinioClient minioClient;
-        if (!configuredProxy()) {
-            minioClient = MinioClient.builder()
-                    .endpoint(minioConfigurationProperties.getUrl())
-                    .credentials(minioConfigurationProperties.getAccessKey(), minioConfigurationProperties.getSecretKey())
-                    .build();
-        } else {
-            minioClient = MinioClient.builder()
-                    .endpoint(minioConfigurationProperties.getUrl())
-                    .credentials(minioConfigurationProperties.getAccessKey(), minioConfigurationProperties.getSecretKey())
-                    .httpClient(client())
-                    .build();
-        }
-        minioClient.setTimeout(
-                minioConfigurationProperties.getConnectTimeout().toMillis(),
-                minioConfigurationProperties.getWriteTimeout().toMillis(),
-                minioConfigurationProperties.getReadTimeout().toMillis()
-        );
+        MinioClient minioClient = MinioClient.builder()
+                .endpoint(minioConfigurationProperties.getUrl())
+                .credentials(minioConfigurationProperties.getAccessKey(), minioConfigurationProperties.getSecretKey())
+                .httpClient(minioHttpClient())
+                .build();
 
-        if (minioConfigurationProperties.isCheckBucket()) {
+        if (minioConfigurationProperties.isCheckBucket() && !minioConfigurationProperties.isDeferBucketCheck()) {
             try {
-                LOGGER.debug("Checking if bucket {} exists", minioConfigurationProperties.getBucket());
-                BucketExistsArgs existsArgs = BucketExistsArgs.builder()
-                        .bucket(minioConfigurationProperties.getBucket())
-                        .build();
-                boolean b = minioClient.bucketExists(existsArgs);
-                if (!b) {
-                    if (minioConfigurationProperties.isCreateBucket()) {
-                        try {
-                            MakeBucketArgs makeBucketArgs = MakeBucketArgs.builder()
-                                    .bucket(minioConfigurationProperties.getBucket())
-                                    .build();
-                            minioClient.makeBucket(makeBucketArgs);
-                        } catch (Exception e) {
-                            throw new MinioException("Cannot create bucket", e);
-                        }
-                    } else {
-                        throw new IllegalStateException("Bucket does not exist: " + minioConfigurationProperties.getBucket());
-                    }
-                }
+                MinioBucketVerifier.checkBucket(minioClient, minioConfigurationProperties);
             } catch (Exception e) {
                 LOGGER.error("Error while checking bucket", e);
                 throw e;
@@ -99,21 +75,59 @@ public class MinioConfiguration {
         return minioClient;
     }
 
-    private boolean configuredProxy() {
-        String httpHost = System.getProperty("http.proxyHost");
-        String httpPort = System.getProperty("http.proxyPort");
-        return httpHost != null && httpPort != null;
+    /**
+     * HTTP client shared by all Minio operations, tuned with the {@code spring.minio.http.*} properties and the
+     * {@link MinioHttpClientCustomizer} beans.
+     */
+    @Bean
+    public OkHttpClient minioHttpClient() {
+        return httpClient(MinioTargets.DEFAULT, minioConfigurationProperties, minioConfigurationProperties.getHttp(), httpClientCustomizers);
     }
 
-    private OkHttpClient client() {
-        String httpHost = System.getProperty("http.proxyHost");
-        String httpPort = System.getProperty("http.proxyPort");
+    /**
+     * Build an HTTP client with its own connection pool and dispatcher.
+     *
+     * @param minioConfigurationProperties Properties giving the timeouts
+     * @param http                         Configuration of the client
+     * @param httpClientCustomizers        Customizers applied to the client
+     * @return The HTTP client
+     */
+    static OkHttpClient httpClient(String target, MinioConfigurationProperties minioConfigurationProperties, MinioConfigurationProperties.Http http,
+                                   ObjectProvider<MinioHttpClientCustomizer> httpClientCustomizers) {
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .connectTimeout(minioConfigurationProperties.getConnectTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                .writeTimeout(minioConfigurationProperties.getWriteTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                .readTimeout(minioConfigurationProperties.getReadTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                .connectionPool(new ConnectionPool(http.getMaxIdleConnections(), http.getKeepAlive().toMillis(), TimeUnit.MILLISECONDS))
+                .protocols(http.isHttp2() ? Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1) : Collections.singletonList(Protocol.HTTP_1_1))
+                .socketFactory(new MinioSocketFactory(
+                        http.isTcpNoDelay(),
+                        http.getSendBufferSize() != null ? (int) http.getSendBufferSize().toBytes() : null,
+                        http.getReceiveBufferSize() != null ? (int) http.getReceiveBufferSize().toBytes() : null
+                ));
 
-        OkHttpClient.Builder builder = new OkHttpClient.Builder();
-        if (httpHost != null)
+        if (configuredProxy()) {
+            String httpHost = System.getProperty("http.proxyHost");
+            String httpPort = System.getProperty("http.proxyPort");
             builder.proxy(new Proxy(Proxy.Type.HTTP, new InetSocketAddress(httpHost, Integer.parseInt(httpPort))));
-        return builder
-                .build();
+        }
+
+        if (minioConfigurationProperties.getContentCache().isEnabled()) {
+            builder.addInterceptor(MinioContentCache.INTERCEPTOR);
+        }
+
+        if (minioConfigurationProperties.getHedge().isEnabled()) {
+            builder.addNetworkInterceptor(MinioHedging.INTERCEPTOR);
+        }
+
+        httpClientCustomizers.orderedStream().forEach(customizer -> customizer.customize(target, builder));
+        return builder.build();
+    }
+
+    private static boolean configuredProxy() {
+        String httpHost = System.getProperty("http.proxyHost");
+        String httpPort = System.getProperty("http.proxyPort");
+        return httpHost != null && httpPort != null;
     }
 
 }
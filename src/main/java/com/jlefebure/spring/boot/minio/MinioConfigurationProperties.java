@@ -18,8 +18,13 @@ package com.jlefebure.spring.boot.minio;
 
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @ConfigurationProperties("spring.minio")
 public class MinioConfigurationProperties {
@@ -80,6 +85,99 @@ public class MinioConfigurationProperties {
      */
     private boolean createBucket = true;
 
+    /**
+     * Check the bucket in background once the application is started, instead of while creating the Minio client.
+     * The application then starts even if Minio is not reachable. The check is retried until it succeeds, and the
+     * health indicator is out of service meanwhile.
+     */
+    private boolean deferBucketCheck = false;
+
+    /**
+     * Retries of the deferred bucket check.
+     */
+    private final BucketCheck bucketCheck = new BucketCheck();
+
+    /**
+     * Configuration of the HTTP client.
+     */
+    private final Http http = new Http();
+
+    /**
+     * Upload configuration.
+     */
+    private final Upload upload = new Upload();
+
+    /**
+     * Download configuration.
+     */
+    private final Download download = new Download();
+
+    /**
+     * Configuration of the batch metadata requests.
+     */
+    private final Stat stat = new Stat();
+
+    /**
+     * Configuration of the bulk removal of objects.
+     */
+    private final Remove remove = new Remove();
+
+    /**
+     * Configuration of the metadata cache.
+     */
+    private final Cache cache = new Cache();
+
+    /**
+     * Configuration of the disk cache of object contents.
+     */
+    private final ContentCache contentCache = new ContentCache();
+
+    /**
+     * Configuration of the executor of {@code MinioAsyncService}.
+     */
+    private final Async async = new Async();
+
+    /**
+     * Configuration of the executor running the concurrent tasks of the starter, like the parts of a multipart upload.
+     */
+    private final TaskExecutor executor = new TaskExecutor();
+
+    /**
+     * Configuration of the tracing of {@code MinioService} operations.
+     */
+    private final Tracing tracing = new Tracing();
+
+    /**
+     * Configuration of the retries of idempotent requests.
+     */
+    private final Retry retry = new Retry();
+
+    /**
+     * Configuration of the circuit breaker and the bulkhead of each bucket.
+     */
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    /**
+     * Configuration of the hedging of reads.
+     */
+    private final Hedge hedge = new Hedge();
+
+    /**
+     * Configuration of the health check of the bucket.
+     */
+    private final Health health = new Health();
+
+    /**
+     * Configuration of the processing of bucket notifications.
+     */
+    private final Notification notification = new Notification();
+
+    /**
+     * Additional buckets, on this Minio instance or on other ones, by name. Each target has its own client and
+     * connection pool, and its own {@link MinioService}, available from {@link MinioTargets}.
+     */
+    private final Map<String, Target> targets = new LinkedHashMap<>();
+
     public Duration getConnectTimeout() {
         return connectTimeout;
     }
@@ -167,4 +265,1060 @@ public class MinioConfigurationProperties {
     public void setCreateBucket(boolean createBucket) {
         this.createBucket = createBucket;
     }
+
+    public boolean isDeferBucketCheck() {
+        return deferBucketCheck;
+    }
+
+    public void setDeferBucketCheck(boolean deferBucketCheck) {
+        this.deferBucketCheck = deferBucketCheck;
+    }
+
+    public BucketCheck getBucketCheck() {
+        return bucketCheck;
+    }
+
+    public Http getHttp() {
+        return http;
+    }
+
+    public Upload getUpload() {
+        return upload;
+    }
+
+    public Download getDownload() {
+        return download;
+    }
+
+    public Stat getStat() {
+        return stat;
+    }
+
+    public Remove getRemove() {
+        return remove;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public ContentCache getContentCache() {
+        return contentCache;
+    }
+
+    public Async getAsync() {
+        return async;
+    }
+
+    public TaskExecutor getExecutor() {
+        return executor;
+    }
+
+    public Tracing getTracing() {
+        return tracing;
+    }
+
+    public Retry getRetry() {
+        return retry;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public Hedge getHedge() {
+        return hedge;
+    }
+
+    public Health getHealth() {
+        return health;
+    }
+
+    public Notification getNotification() {
+        return notification;
+    }
+
+    public Map<String, Target> getTargets() {
+        return targets;
+    }
+
+    public static class Target {
+
+        /**
+         * URL of the Minio instance of the target. Defaults to {@code spring.minio.url}.
+         */
+        private String url;
+
+        /**
+         * Access key of the target. Defaults to {@code spring.minio.access-key}.
+         */
+        private String accessKey;
+
+        /**
+         * Secret key of the target. Defaults to {@code spring.minio.secret-key}.
+         */
+        private String secretKey;
+
+        /**
+         * Bucket of the target.
+         */
+        private String bucket;
+
+        /**
+         * Configuration of the HTTP client of the target.
+         */
+        private final Http http = new Http();
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getAccessKey() {
+            return accessKey;
+        }
+
+        public void setAccessKey(String accessKey) {
+            this.accessKey = accessKey;
+        }
+
+        public String getSecretKey() {
+            return secretKey;
+        }
+
+        public void setSecretKey(String secretKey) {
+            this.secretKey = secretKey;
+        }
+
+        public String getBucket() {
+            return bucket;
+        }
+
+        public void setBucket(String bucket) {
+            this.bucket = bucket;
+        }
+
+        public Http getHttp() {
+            return http;
+        }
+    }
+
+    public static class BucketCheck {
+
+        /**
+         * Maximum number of attempts of the deferred check, 0 means unlimited. When exhausted, the health indicator
+         * is down.
+         */
+        private int maxAttempts = 0;
+
+        /**
+         * Delay before the first retry, doubled on each retry. Delays below 100ms are raised to 100ms.
+         */
+        private Duration initialBackoff = Duration.ofSeconds(1);
+
+        /**
+         * Maximum delay between two attempts.
+         */
+        private Duration maxBackoff = Duration.ofMinutes(1);
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public Duration getInitialBackoff() {
+            return initialBackoff;
+        }
+
+        public void setInitialBackoff(Duration initialBackoff) {
+            this.initialBackoff = initialBackoff;
+        }
+
+        public Duration getMaxBackoff() {
+            return maxBackoff;
+        }
+
+        public void setMaxBackoff(Duration maxBackoff) {
+            this.maxBackoff = maxBackoff;
+        }
+    }
+
+    public static class Http {
+
+        /**
+         * Maximum number of idle connections kept in the connection pool.
+         */
+        private int maxIdleConnections = 32;
+
+        /**
+         * Time after which an idle connection is closed.
+         */
+        private Duration keepAlive = Duration.ofMinutes(5);
+
+        /**
+         * Negotiate HTTP/2 with the server. Only available on HTTPS connections.
+         */
+        private boolean http2 = false;
+
+        /**
+         * Disable Nagle's algorithm on the connections.
+         */
+        private boolean tcpNoDelay = true;
+
+        /**
+         * Size of the socket send buffer. The OS default is used if not set.
+         */
+        private DataSize sendBufferSize;
+
+        /**
+         * Size of the socket receive buffer. The OS default is used if not set.
+         */
+        private DataSize receiveBufferSize;
+
+        public int getMaxIdleConnections() {
+            return maxIdleConnections;
+        }
+
+        public void setMaxIdleConnections(int maxIdleConnections) {
+            this.maxIdleConnections = maxIdleConnections;
+        }
+
+        public Duration getKeepAlive() {
+            return keepAlive;
+        }
+
+        public void setKeepAlive(Duration keepAlive) {
+            this.keepAlive = keepAlive;
+        }
+
+        public boolean isHttp2() {
+            return http2;
+        }
+
+        public void setHttp2(boolean http2) {
+            this.http2 = http2;
+        }
+
+        public boolean isTcpNoDelay() {
+            return tcpNoDelay;
+        }
+
+        public void setTcpNoDelay(boolean tcpNoDelay) {
+            this.tcpNoDelay = tcpNoDelay;
+        }
+
+        public DataSize getSendBufferSize() {
+            return sendBufferSize;
+        }
+
+        public void setSendBufferSize(DataSize sendBufferSize) {
+            this.sendBufferSize = sendBufferSize;
+        }
+
+        public DataSize getReceiveBufferSize() {
+            return receiveBufferSize;
+        }
+
+        public void setReceiveBufferSize(DataSize receiveBufferSize) {
+            this.receiveBufferSize = receiveBufferSize;
+        }
+    }
+
+    public static class Upload {
+
+        /**
+         * Upload the streams given to {@code MinioService.upload} methods part by part, without relying on
+         * {@code InputStream.available()} to know the object size. Allow to upload streams of unknown length.
+         */
+        private boolean streaming = false;
+
+        /**
+         * Size of each part of a multipart upload. Must be at least 5MB, as required by the S3 API.
+         */
+        private DataSize partSize = DataSize.ofMegabytes(16);
+
+        /**
+         * Maximum number of parts held in memory at the same time, for all uploads of the application, including the
+         * uploads to the buckets of the targets.
+         */
+        private int maxBufferedParts = 4;
+
+        /**
+         * Maximum number of parts of a single file uploaded at the same time. Files larger than {@code part-size} are
+         * uploaded in parallel parts. The number of parts in memory is still bounded by {@code max-buffered-parts}.
+         */
+        private int maxInFlightParts = 4;
+
+        public boolean isStreaming() {
+            return streaming;
+        }
+
+        public void setStreaming(boolean streaming) {
+            this.streaming = streaming;
+        }
+
+        public DataSize getPartSize() {
+            return partSize;
+        }
+
+        public void setPartSize(DataSize partSize) {
+            this.partSize = partSize;
+        }
+
+        public int getMaxBufferedParts() {
+            return maxBufferedParts;
+        }
+
+        public void setMaxBufferedParts(int maxBufferedParts) {
+            this.maxBufferedParts = maxBufferedParts;
+        }
+
+        public int getMaxInFlightParts() {
+            return maxInFlightParts;
+        }
+
+        public void setMaxInFlightParts(int maxInFlightParts) {
+            this.maxInFlightParts = maxInFlightParts;
+        }
+    }
+
+    public static class Download {
+
+        /**
+         * Download the objects given to {@code MinioService.getAndSave} with concurrent ranged requests when they
+         * are larger than a segment.
+         */
+        private boolean segmented = false;
+
+        /**
+         * Size of each ranged request of a segmented download.
+         */
+        private DataSize segmentSize = DataSize.ofMegabytes(16);
+
+        /**
+         * Maximum number of segments of a single object downloaded at the same time.
+         */
+        private int maxInFlightSegments = 4;
+
+        public boolean isSegmented() {
+            return segmented;
+        }
+
+        public void setSegmented(boolean segmented) {
+            this.segmented = segmented;
+        }
+
+        public DataSize getSegmentSize() {
+            return segmentSize;
+        }
+
+        public void setSegmentSize(DataSize segmentSize) {
+            this.segmentSize = segmentSize;
+        }
+
+        public int getMaxInFlightSegments() {
+            return maxInFlightSegments;
+        }
+
+        public void setMaxInFlightSegments(int maxInFlightSegments) {
+            this.maxInFlightSegments = maxInFlightSegments;
+        }
+    }
+
+    public static class Stat {
+
+        /**
+         * Maximum number of metadata requests of a single batch running at the same time.
+         * The effective concurrency is also bounded by the number of threads of the executor.
+         */
+        private int maxInFlight = 16;
+
+        public int getMaxInFlight() {
+            return maxInFlight;
+        }
+
+        public void setMaxInFlight(int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+        }
+    }
+
+    public static class Remove {
+
+        /**
+         * Number of objects removed in a single multi-object delete request, up to 1000.
+         */
+        private int batchSize = 1000;
+
+        /**
+         * Maximum number of delete requests of a single bulk removal running at the same time.
+         */
+        private int maxInFlightBatches = 4;
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getMaxInFlightBatches() {
+            return maxInFlightBatches;
+        }
+
+        public void setMaxInFlightBatches(int maxInFlightBatches) {
+            this.maxInFlightBatches = maxInFlightBatches;
+        }
+    }
+
+    public static class Cache {
+
+        /**
+         * Cache the metadata returned by {@code MinioService.getMetadata}. Entries are invalidated by the bucket
+         * notifications, so the credentials must allow to listen on the bucket.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Maximum number of objects in the cache. The least recently used are evicted first.
+         */
+        private int maxSize = 10000;
+
+        /**
+         * Time after which the metadata of an object is fetched again.
+         */
+        private Duration ttl = Duration.ofSeconds(60);
+
+        /**
+         * Time during which a missing object is known as missing. Setting 0 disables the caching of missing objects.
+         */
+        private Duration negativeTtl = Duration.ofSeconds(10);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public Duration getNegativeTtl() {
+            return negativeTtl;
+        }
+
+        public void setNegativeTtl(Duration negativeTtl) {
+            this.negativeTtl = negativeTtl;
+        }
+    }
+
+    public static class ContentCache {
+
+        /**
+         * Cache on disk the objects returned by {@code MinioService.get}. Each read is still validated against Minio
+         * with a conditional request on the ETag of the cached object.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Directory where the objects are cached. Files of a previous run in this directory are removed at startup.
+         */
+        private Path directory = Paths.get(System.getProperty("java.io.tmpdir"), "minio-content-cache");
+
+        /**
+         * Maximum size of all cached objects. The least recently used objects are evicted first.
+         */
+        private DataSize maxSize = DataSize.ofMegabytes(512);
+
+        /**
+         * Maximum size of a single cached object. Larger objects are always streamed from Minio.
+         */
+        private DataSize maxObjectSize = DataSize.ofMegabytes(8);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Path getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(Path directory) {
+            this.directory = directory;
+        }
+
+        public DataSize getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(DataSize maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public DataSize getMaxObjectSize() {
+            return maxObjectSize;
+        }
+
+        public void setMaxObjectSize(DataSize maxObjectSize) {
+            this.maxObjectSize = maxObjectSize;
+        }
+    }
+
+    public static class Async {
+
+        /**
+         * Number of threads running the operations of {@code MinioAsyncService}. Threads are created on demand.
+         */
+        private int threads = 16;
+
+        /**
+         * Time after which an idle thread is stopped.
+         */
+        private Duration keepAlive = Duration.ofSeconds(60);
+
+        /**
+         * Run each operation on its own virtual thread. Requires JDK 21+, the thread pool is used otherwise.
+         */
+        private boolean virtualThreads = false;
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public Duration getKeepAlive() {
+            return keepAlive;
+        }
+
+        public void setKeepAlive(Duration keepAlive) {
+            this.keepAlive = keepAlive;
+        }
+
+        public boolean isVirtualThreads() {
+            return virtualThreads;
+        }
+
+        public void setVirtualThreads(boolean virtualThreads) {
+            this.virtualThreads = virtualThreads;
+        }
+    }
+
+    public static class TaskExecutor {
+
+        /**
+         * Number of threads of the executor. Threads are created on demand.
+         */
+        private int threads = 8;
+
+        /**
+         * Time after which an idle thread is stopped.
+         */
+        private Duration keepAlive = Duration.ofSeconds(60);
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public Duration getKeepAlive() {
+            return keepAlive;
+        }
+
+        public void setKeepAlive(Duration keepAlive) {
+            this.keepAlive = keepAlive;
+        }
+    }
+
+    public static class Tracing {
+
+        /**
+         * Create a span for each operation of {@code MinioService}, when Brave is on the classpath and a
+         * {@code Tracing} bean is available, like with Spring Cloud Sleuth.
+         */
+        private boolean enabled = false;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+    }
+
+    public static class Retry {
+
+        /**
+         * Retry the requests of idempotent operations failing with a server error, a throttling or a network error.
+         * Retried operations are reads, removals, and uploads of files, of parts or of streams supporting mark.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Maximum number of attempts of a request, including the first one.
+         */
+        private int maxAttempts = 3;
+
+        /**
+         * Maximum delay before the first retry. The actual delay is random between 0 and this value.
+         */
+        private Duration initialBackoff = Duration.ofMillis(100);
+
+        /**
+         * Maximum delay between two attempts.
+         */
+        private Duration maxBackoff = Duration.ofSeconds(2);
+
+        /**
+         * Factor applied to the delay after each attempt.
+         */
+        private double multiplier = 2;
+
+        /**
+         * Retries allowed for each request. 0.1 allows at most 10% of additional requests when the server fails.
+         */
+        private double budgetRatio = 0.1;
+
+        /**
+         * Retries allowed each second whatever the number of requests, so applications with low traffic can retry.
+         */
+        private int minRetriesPerSecond = 10;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public Duration getInitialBackoff() {
+            return initialBackoff;
+        }
+
+        public void setInitialBackoff(Duration initialBackoff) {
+            this.initialBackoff = initialBackoff;
+        }
+
+        public Duration getMaxBackoff() {
+            return maxBackoff;
+        }
+
+        public void setMaxBackoff(Duration maxBackoff) {
+            this.maxBackoff = maxBackoff;
+        }
+
+        public double getMultiplier() {
+            return multiplier;
+        }
+
+        public void setMultiplier(double multiplier) {
+            this.multiplier = multiplier;
+        }
+
+        public double getBudgetRatio() {
+            return budgetRatio;
+        }
+
+        public void setBudgetRatio(double budgetRatio) {
+            this.budgetRatio = budgetRatio;
+        }
+
+        public int getMinRetriesPerSecond() {
+            return minRetriesPerSecond;
+        }
+
+        public void setMinRetriesPerSecond(int minRetriesPerSecond) {
+            this.minRetriesPerSecond = minRetriesPerSecond;
+        }
+    }
+
+    public static class CircuitBreaker {
+
+        /**
+         * Reject the calls to a bucket without sending them while the bucket fails or is slow, and limit the
+         * number of concurrent calls to a bucket.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Percentage of calls failing with a server or network error above which the circuit opens.
+         */
+        private float failureRateThreshold = 50;
+
+        /**
+         * Percentage of slow calls above which the circuit opens.
+         */
+        private float slowCallRateThreshold = 100;
+
+        /**
+         * Duration above which a call is slow. Each HTTP request is a call, and requests transferring a whole object
+         * are never slow.
+         */
+        private Duration slowCallDuration = Duration.ofSeconds(10);
+
+        /**
+         * Number of calls whose outcome is recorded to compute the rates.
+         */
+        private int windowSize = 100;
+
+        /**
+         * Minimum number of recorded calls before the rates are computed.
+         */
+        private int minimumCalls = 20;
+
+        /**
+         * Time during which calls are rejected once the circuit is open, before trial calls are permitted.
+         */
+        private Duration waitDurationInOpenState = Duration.ofSeconds(30);
+
+        /**
+         * Number of trial calls permitted when the circuit is half-open.
+         */
+        private int permittedCallsInHalfOpenState = 5;
+
+        /**
+         * Maximum number of HTTP requests running at the same time on a bucket. 0 means unlimited.
+         */
+        private int maxConcurrentCalls = 0;
+
+        /**
+         * Time to wait for a running call to complete when the maximum number of concurrent calls is reached.
+         */
+        private Duration maxWait = Duration.ZERO;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public float getFailureRateThreshold() {
+            return failureRateThreshold;
+        }
+
+        public void setFailureRateThreshold(float failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+        }
+
+        public float getSlowCallRateThreshold() {
+            return slowCallRateThreshold;
+        }
+
+        public void setSlowCallRateThreshold(float slowCallRateThreshold) {
+            this.slowCallRateThreshold = slowCallRateThreshold;
+        }
+
+        public Duration getSlowCallDuration() {
+            return slowCallDuration;
+        }
+
+        public void setSlowCallDuration(Duration slowCallDuration) {
+            this.slowCallDuration = slowCallDuration;
+        }
+
+        public int getWindowSize() {
+            return windowSize;
+        }
+
+        public void setWindowSize(int windowSize) {
+            this.windowSize = windowSize;
+        }
+
+        public int getMinimumCalls() {
+            return minimumCalls;
+        }
+
+        public void setMinimumCalls(int minimumCalls) {
+            this.minimumCalls = minimumCalls;
+        }
+
+        public Duration getWaitDurationInOpenState() {
+            return waitDurationInOpenState;
+        }
+
+        public void setWaitDurationInOpenState(Duration waitDurationInOpenState) {
+            this.waitDurationInOpenState = waitDurationInOpenState;
+        }
+
+        public int getPermittedCallsInHalfOpenState() {
+            return permittedCallsInHalfOpenState;
+        }
+
+        public void setPermittedCallsInHalfOpenState(int permittedCallsInHalfOpenState) {
+            this.permittedCallsInHalfOpenState = permittedCallsInHalfOpenState;
+        }
+
+        public int getMaxConcurrentCalls() {
+            return maxConcurrentCalls;
+        }
+
+        public void setMaxConcurrentCalls(int maxConcurrentCalls) {
+            this.maxConcurrentCalls = maxConcurrentCalls;
+        }
+
+        public Duration getMaxWait() {
+            return maxWait;
+        }
+
+        public void setMaxWait(Duration maxWait) {
+            this.maxWait = maxWait;
+        }
+    }
+
+    public static class Hedge {
+
+        /**
+         * Send a duplicate of the requests of {@code MinioService.get} and {@code MinioService.getMetadata} which
+         * are slower than usual, and keep the first response. Suited to small objects, as only the time until the
+         * response headers are received is hedged.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Percentile of the latency of the last requests after which a duplicate request is sent.
+         */
+        private double percentile = 95;
+
+        /**
+         * Minimum delay before a duplicate request is sent.
+         */
+        private Duration minDelay = Duration.ofMillis(5);
+
+        /**
+         * Maximum number of duplicate requests sent each second.
+         */
+        private int maxHedgesPerSecond = 10;
+
+        /**
+         * Maximum number of duplicate requests running at the same time. No duplicate is sent while all are running.
+         */
+        private int maxConcurrentHedges = 16;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getPercentile() {
+            return percentile;
+        }
+
+        public void setPercentile(double percentile) {
+            this.percentile = percentile;
+        }
+
+        public Duration getMinDelay() {
+            return minDelay;
+        }
+
+        public void setMinDelay(Duration minDelay) {
+            this.minDelay = minDelay;
+        }
+
+        public int getMaxHedgesPerSecond() {
+            return maxHedgesPerSecond;
+        }
+
+        public void setMaxHedgesPerSecond(int maxHedgesPerSecond) {
+            this.maxHedgesPerSecond = maxHedgesPerSecond;
+        }
+
+        public int getMaxConcurrentHedges() {
+            return maxConcurrentHedges;
+        }
+
+        public void setMaxConcurrentHedges(int maxConcurrentHedges) {
+            this.maxConcurrentHedges = maxConcurrentHedges;
+        }
+    }
+
+    public static class Health {
+
+        /**
+         * Delay between two checks of the bucket, run in background. Probes get the result of the last check.
+         */
+        private Duration interval = Duration.ofSeconds(10);
+
+        /**
+         * Time after which a check is reported down.
+         */
+        private Duration timeout = Duration.ofSeconds(2);
+
+        public Duration getInterval() {
+            return interval;
+        }
+
+        public void setInterval(Duration interval) {
+            this.interval = interval;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+    }
+
+    public static class Notification {
+
+        public enum Overflow {
+            BLOCK, DROP, DROP_OLDEST
+        }
+
+        /**
+         * Number of threads processing the notifications of all handlers. Notifications of a handler are processed one at a time, in order.
+         */
+        private int threads = 4;
+
+        /**
+         * Time after which an idle thread is stopped.
+         */
+        private Duration keepAlive = Duration.ofSeconds(60);
+
+        /**
+         * Maximum number of notification records waiting to be processed by each handler.
+         */
+        private int queueCapacity = 1000;
+
+        /**
+         * Maximum number of records processed in a row by a handler before giving its thread to another handler.
+         */
+        private int batchSize = 100;
+
+        /**
+         * What to do when the queue of a handler is full : block the listening of the bucket, drop the new records or
+         * drop the oldest ones. Blocking loses no record, but the listening is shared by all handlers : a single slow
+         * handler then stalls the notifications of all others, and Minio may drop the events it cannot send. Use
+         * {@code drop-oldest} when handlers must stay independent.
+         */
+        private Overflow overflow = Overflow.BLOCK;
+
+        /**
+         * Delay before reconnecting to the bucket after the first failure. The delay doubles after each failure.
+         * Delays below 100ms are raised to 100ms.
+         */
+        private Duration reconnectInitialBackoff = Duration.ofSeconds(1);
+
+        /**
+         * Maximum delay before reconnecting to the bucket.
+         */
+        private Duration reconnectMaxBackoff = Duration.ofMinutes(1);
+
+        /**
+         * After a reconnection, list the objects modified since the last received event, and handle them as
+         * {@code s3:ObjectCreated:Put} events. Handlers must accept duplicates, and removals are not reconciled.
+         */
+        private boolean reconcile = false;
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public Duration getKeepAlive() {
+            return keepAlive;
+        }
+
+        public void setKeepAlive(Duration keepAlive) {
+            this.keepAlive = keepAlive;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public Overflow getOverflow() {
+            return overflow;
+        }
+
+        public void setOverflow(Overflow overflow) {
+            this.overflow = overflow;
+        }
+
+        public Duration getReconnectInitialBackoff() {
+            return reconnectInitialBackoff;
+        }
+
+        public void setReconnectInitialBackoff(Duration reconnectInitialBackoff) {
+            this.reconnectInitialBackoff = reconnectInitialBackoff;
+        }
+
+        public Duration getReconnectMaxBackoff() {
+            return reconnectMaxBackoff;
+        }
+
+        public void setReconnectMaxBackoff(Duration reconnectMaxBackoff) {
+            this.reconnectMaxBackoff = reconnectMaxBackoff;
+        }
+
+        public boolean isReconcile() {
+            return reconcile;
+        }
+
+        public void setReconcile(boolean reconcile) {
+            this.reconcile = reconcile;
+        }
+    }
 }
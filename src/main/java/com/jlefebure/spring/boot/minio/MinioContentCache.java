@@ -0,0 +1,234 @@
+/*
+ * Copyright Jordan LEFEBURE © 2019.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.jlefebure.spring.boot.minio;
+
+import io.minio.GetObjectResponse;
+import io.minio.errors.ErrorResponseException;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Read-through disk cache of object contents, used by {@link MinioService#get(java.nio.file.Path)}.
+ * Each read is validated against Minio with a conditional request on the cached ETag : if the object has not changed,
+ * the content is read from the local file instead of being downloaded again.
+ * Only objects smaller than {@code spring.minio.content-cache.max-object-size} are cached, and the least recently
+ * used objects are evicted once the cache exceeds {@code spring.minio.content-cache.max-size}.
+ * <p>
+ * The SDK reports a response without XML body as an error which does not keep the status code, so a 304 response is
+ * given an S3 error body by {@link #INTERCEPTOR}, installed on the HTTP client of the starter, and reaches the cache
+ * as an {@link ErrorResponseException} holding the response.
+ *
+ * @author Jordan LEFEBURE
+ */
+@Component
+@ConditionalOnProperty(prefix = "spring.minio.content-cache", name = "enabled", havingValue = "true")
+public class MinioContentCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MinioContentCache.class);
+
+    private static final String SUFFIX = ".minio-cache";
+
+    private static final int NOT_MODIFIED = 304;
+
+    private static final MediaType XML = MediaType.get("application/xml");
+
+    /**
+     * Give a 304 response the body of an S3 error, so the SDK throws an {@link ErrorResponseException} with the
+     * response instead of a generic error.
+     */
+    static final Interceptor INTERCEPTOR = chain -> {
+        Response response = chain.proceed(chain.request());
+        if (response.code() != NOT_MODIFIED) {
+            return response;
+        }
+        response.close();
+        return response.newBuilder()
+                .header("Content-Type", XML.toString())
+                .body(ResponseBody.create(XML, "<Error><Code>NotModified</Code><Message>Not Modified</Message></Error>"))
+                .build();
+    };
+
+    private final Path directory;
+    private final long maxSize;
+    private final long maxObjectSize;
+    private final Map<String, CachedObject> objects = new LinkedHashMap<>(16, 0.75f, true);
+    private long size;
+
+    @Autowired
+    public MinioContentCache(MinioConfigurationProperties minioConfigurationProperties) throws IOException {
+        MinioConfigurationProperties.ContentCache contentCache = minioConfigurationProperties.getContentCache();
+        this.directory = contentCache.getDirectory().toAbsolutePath();
+        this.maxSize = contentCache.getMaxSize().toBytes();
+        this.maxObjectSize = contentCache.getMaxObjectSize().toBytes();
+
+        Files.createDirectories(directory);
+        // Files left by a previous run are not indexed, so they can only be removed
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * Get the content of an object, from the disk if the cached version is still the current one.
+     *
+     * @param object Object name
+     * @param loader Fetch the object from Minio, with an If-None-Match condition on the given ETag if it is not null
+     * @return The object as an InputStream
+     * @throws Exception if the object cannot be fetched
+     */
+    InputStream get(String object, ObjectLoader loader) throws Exception {
+        CachedObject cached;
+        synchronized (this) {
+            cached = objects.get(object);
+        }
+
+        // Open the file before validating it, so an eviction in between cannot remove it
+        FileChannel channel = null;
+        if (cached != null) {
+            try {
+                channel = FileChannel.open(cached.file, StandardOpenOption.READ);
+            } catch (IOException e) {
+                cached = null;
+            }
+        }
+
+        GetObjectResponse response;
+        try {
+            response = loader.load(cached != null ? cached.etag : null);
+        } catch (ErrorResponseException e) {
+            if (channel != null && isNotModified(e)) {
+                return Channels.newInputStream(channel);
+            }
+            closeQuietly(channel);
+            throw e;
+        } catch (Exception e) {
+            closeQuietly(channel);
+            throw e;
+        }
+        closeQuietly(channel);
+
+        String etag = response.headers().get("ETag");
+        String contentLength = response.headers().get("Content-Length");
+        if (etag == null || contentLength == null || Long.parseLong(contentLength) > maxObjectSize) {
+            invalidate(object);
+            return response;
+        }
+
+        Path file = directory.resolve(UUID.randomUUID() + SUFFIX);
+        try (InputStream stream = response) {
+            Files.copy(stream, file, StandardCopyOption.REPLACE_EXISTING);
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        put(object, new CachedObject(etag.replace("\"", ""), file, channel.size()));
+        return Channels.newInputStream(channel);
+    }
+
+    private static boolean isNotModified(ErrorResponseException e) {
+        return e.response() != null && e.response().code() == NOT_MODIFIED;
+    }
+
+    private synchronized void put(String object, CachedObject cached) {
+        remove(objects.put(object, cached));
+        size += cached.size;
+
+        Iterator<CachedObject> eldest = objects.values().iterator();
+        while (size > maxSize && eldest.hasNext()) {
+            CachedObject evicted = eldest.next();
+            eldest.remove();
+            remove(evicted);
+        }
+    }
+
+    /**
+     * Remove the content of an object from the cache.
+     *
+     * @param object Object name
+     */
+    public synchronized void invalidate(String object) {
+        remove(objects.remove(object));
+    }
+
+    private void remove(CachedObject cached) {
+        if (cached == null) {
+            return;
+        }
+        size -= cached.size;
+        try {
+            // Streams already opened on the file can still be read on POSIX file systems
+            Files.deleteIfExists(cached.file);
+        } catch (IOException e) {
+            LOGGER.warn("Cannot remove cached file {}", cached.file, e);
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Nothing to do, the channel was only opened for reading
+        }
+    }
+
+    /**
+     * Fetch an object from Minio.
+     */
+    @FunctionalInterface
+    interface ObjectLoader {
+        GetObjectResponse load(String notMatchETag) throws Exception;
+    }
+
+    private static class CachedObject {
+        private final String etag;
+        private final Path file;
+        private final long size;
+
+        private CachedObject(String etag, Path file, long size) {
+            this.etag = etag;
+            this.file = file;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright Jordan LEFEBURE © 2019.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.jlefebure.spring.boot.minio;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Blocking {@link InputStream} reading the buffers of a {@link org.reactivestreams.Publisher}.
+ * A single buffer is requested at a time, when the previous one starts to be read, so at most two buffers of the
+ * publisher are held in memory whatever the speed of the reader.
+ *
+ * @author Jordan LEFEBURE
+ */
+class MinioDataBufferInputStream extends InputStream implements Subscriber<DataBuffer> {
+
+    private static final Object COMPLETE = new Object();
+
+    private final LinkedBlockingQueue<Object> signals = new LinkedBlockingQueue<>();
+    private Subscription subscription;
+    private volatile boolean closed;
+    private DataBuffer current;
+    private boolean done;
+
+    @Override
+    public synchronized void onSubscribe(Subscription subscription) {
+        this.subscription = subscription;
+        if (closed) {
+            subscription.cancel();
+        } else {
+            subscription.request(1);
+        }
+    }
+
+    @Override
+    public void onNext(DataBuffer buffer) {
+        if (closed) {
+            DataBufferUtils.release(buffer);
+        } else {
+            signals.offer(buffer);
+        }
+    }
+
+    @Override
+    public void onError(Throwable error) {
+        signals.offer(error);
+    }
+
+    @Override
+    public void onComplete() {
+        signals.offer(COMPLETE);
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        while (current == null || current.readableByteCount() == 0) {
+            if (!next()) {
+                return -1;
+            }
+        }
+        int count = Math.min(length, current.readableByteCount());
+        current.read(bytes, offset, count);
+        return count;
+    }
+
+    /**
+     * Release the current buffer and wait for the next one.
+     *
+     * @return False at the end of the publisher
+     */
+    private boolean next() throws IOException {
+        if (current != null) {
+            DataBufferUtils.release(current);
+            current = null;
+        }
+        if (done || closed) {
+            return false;
+        }
+
+        Object signal;
+        try {
+            signal = signals.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for data");
+        }
+        if (signal == COMPLETE) {
+            done = true;
+            return false;
+        }
+        if (signal instanceof Throwable) {
+            done = true;
+            throw new IOException("Error while reading data", (Throwable) signal);
+        }
+        current = (DataBuffer) signal;
+        synchronized (this) {
+            subscription.request(1);
+        }
+        return true;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        synchronized (this) {
+            if (subscription != null) {
+                subscription.cancel();
+            }
+        }
+        if (current != null) {
+            DataBufferUtils.release(current);
+            current = null;
+        }
+        Object signal;
+        while ((signal = signals.poll()) != null) {
+            if (signal instanceof DataBuffer) {
+                DataBufferUtils.release((DataBuffer) signal);
+            }
+        }
+    }
+}
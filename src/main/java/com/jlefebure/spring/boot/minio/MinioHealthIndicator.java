@@ -18,15 +18,46 @@ package com.jlefebure.spring.boot.minio;
 
 import io.minio.BucketExistsArgs;
 import io.minio.MinioClient;
+import okhttp3.OkHttpClient;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.actuate.autoconfigure.web.server.ManagementContextAutoConfiguration;
 import org.springframework.boot.actuate.health.Health;
 import org.springframework.boot.actuate.health.HealthIndicator;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 /**
- * Set the Minio health indicator on Actuator.
+ * Set the Minio health indicator on Actuator. When circuit breakers are enabled, the state of the circuit breakers of
+ * the default bucket and of the targets is shown in the details.
+ * <p>
+ * The bucket is checked in background every {@code spring.minio.health.interval}, so probes never wait for Minio :
+ * they get the result of the last check, with its age and the latency of the request. A check which does not complete
+ * within {@code spring.minio.health.timeout} is reported down, and no other check is started until it completes.
+ * Checks use a client with a call timeout of {@code spring.minio.health.timeout}, sharing the connection pool of the
+ * Minio client, so a hung request is aborted instead of holding the checker thread until the read timeout.
+ * <p>
+ * When the bucket check is deferred, the indicator is out of service until {@link MinioBucketVerifier} verified the
+ * bucket and the buckets of the targets, and down if all attempts failed for one of them. It can then be added to the readiness group, so the application does
+ * not receive traffic before the bucket is available.
  *
  * @author Jordan LEFEBURE
  */
@@ -36,37 +67,185 @@ public class MinioHealthIndicator implements HealthIndicator {
 
     private final MinioClient minioClient;
     private final MinioConfigurationProperties minioConfigurationProperties;
+    private final MinioCircuitBreakers circuitBreakers;
+    private final MinioBucketVerifier bucketVerifier;
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService checker;
+
+    private volatile Health health = Health.unknown().withDetail("reason", "Bucket not checked yet").build();
+    private volatile Instant checkedAt;
+    private final AtomicBoolean running = new AtomicBoolean();
 
     @Autowired
-    public MinioHealthIndicator(MinioClient minioClient, MinioConfigurationProperties minioConfigurationProperties) {
+    public MinioHealthIndicator(@Qualifier("minioHttpClient") OkHttpClient minioHttpClient,
+                                MinioConfigurationProperties minioConfigurationProperties,
+                                @Nullable MinioCircuitBreakers circuitBreakers, MinioBucketVerifier bucketVerifier) {
+        this(healthClient(minioHttpClient, minioConfigurationProperties), minioConfigurationProperties, circuitBreakers, bucketVerifier);
+    }
+
+    MinioHealthIndicator(MinioClient minioClient, MinioConfigurationProperties minioConfigurationProperties,
+                         @Nullable MinioCircuitBreakers circuitBreakers, MinioBucketVerifier bucketVerifier) {
         this.minioClient = minioClient;
         this.minioConfigurationProperties = minioConfigurationProperties;
+        this.circuitBreakers = circuitBreakers;
+        this.bucketVerifier = bucketVerifier;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("minio-health-"));
+        this.checker = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("minio-health-check-"));
     }
 
+    /**
+     * Client of the default bucket whose requests are aborted after the health timeout.
+     */
+    private static MinioClient healthClient(OkHttpClient minioHttpClient, MinioConfigurationProperties minioConfigurationProperties) {
+        long timeout = minioConfigurationProperties.getHealth().getTimeout().toMillis();
+        return MinioClient.builder()
+                .endpoint(minioConfigurationProperties.getUrl())
+                .credentials(minioConfigurationProperties.getAccessKey(), minioConfigurationProperties.getSecretKey())
+                .httpClient(minioHttpClient.newBuilder().callTimeout(timeout, TimeUnit.MILLISECONDS).build())
+                .build();
+    }
+
+    @PostConstruct
+    public void start() {
+        long interval = minioConfigurationProperties.getHealth().getInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::refresh, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+        checker.shutdownNow();
+    }
 
     @Override
     public Health health() {
+        if (bucketVerifier.getState() != MinioBucketVerifier.State.VERIFIED) {
+            return bucketCheckHealth();
+        }
+        Instant lastCheck = checkedAt;
+        Health.Builder builder = Health.status(health.getStatus()).withDetails(health.getDetails());
+        if (lastCheck != null) {
+            builder.withDetail("checkedAt", lastCheck.toString())
+                    .withDetail("ageMillis", Instant.now().toEpochMilli() - lastCheck.toEpochMilli());
+        }
+        return builder.withDetails(circuitBreakerDetails()).build();
+    }
+
+    /**
+     * Run a check, waiting at most the timeout, and keep its result for the probes. A check still running after the
+     * timeout keeps the checker busy, so no other check is started until it completes.
+     */
+    void refresh() {
+        if (!running.compareAndSet(false, true)) {
+            health = Health.down()
+                    .withDetail("bucketName", minioConfigurationProperties.getBucket())
+                    .withDetail("reason", "Previous check is still running")
+                    .build();
+            checkedAt = Instant.now();
+            return;
+        }
+        Future<Health> check;
+        try {
+            check = checker.submit(() -> {
+                try {
+                    return check();
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            running.set(false);
+            return;
+        }
+        try {
+            health = check.get(minioConfigurationProperties.getHealth().getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            health = Health.down()
+                    .withDetail("bucketName", minioConfigurationProperties.getBucket())
+                    .withDetail("reason", "Check timed out after " + minioConfigurationProperties.getHealth().getTimeout())
+                    .build();
+        } catch (ExecutionException e) {
+            health = Health.down()
+                    .withException(e.getCause())
+                    .withDetail("bucketName", minioConfigurationProperties.getBucket())
+                    .build();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        checkedAt = Instant.now();
+    }
+
+    private Health check() {
         if (minioClient == null) {
             return Health.down().build();
         }
 
+        long start = System.nanoTime();
         try {
             BucketExistsArgs args = BucketExistsArgs.builder()
                     .bucket(minioConfigurationProperties.getBucket())
                     .build();
-            if (minioClient.bucketExists(args)) {
+            boolean exists = minioClient.bucketExists(args);
+            long latency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            if (exists) {
                 return Health.up()
                         .withDetail("bucketName", minioConfigurationProperties.getBucket())
+                        .withDetail("latencyMillis", latency)
                         .build();
             } else {
                 return Health.down()
                         .withDetail("bucketName", minioConfigurationProperties.getBucket())
+                        .withDetail("latencyMillis", latency)
                         .build();
             }
         } catch (Exception e) {
             return Health.down(e)
                     .withDetail("bucketName", minioConfigurationProperties.getBucket())
+                    .withDetail("latencyMillis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))
                     .build();
         }
     }
+
+    /**
+     * Health while the deferred bucket checks are retried or failed, with the check of each bucket.
+     */
+    private Health bucketCheckHealth() {
+        Health.Builder builder = bucketVerifier.getState() == MinioBucketVerifier.State.FAILED ? Health.down() : Health.outOfService();
+        Map<String, Object> bucketChecks = new LinkedHashMap<>();
+        for (MinioBucketVerifier.Check check : bucketVerifier.getChecks().values()) {
+            Map<String, Object> bucketCheck = new LinkedHashMap<>();
+            bucketCheck.put("bucketName", check.getBucket());
+            bucketCheck.put("state", check.getState());
+            bucketCheck.put("attempts", check.getAttempts());
+            Exception lastError = check.getLastError();
+            if (lastError != null) {
+                bucketCheck.put("error", lastError.getClass().getName() + ": " + lastError.getMessage());
+            }
+            bucketChecks.put(check.getName(), bucketCheck);
+        }
+        return builder.withDetail("bucketName", minioConfigurationProperties.getBucket())
+                .withDetail("bucketCheck", bucketChecks)
+                .build();
+    }
+
+    private Map<String, Object> circuitBreakerDetails() {
+        Map<String, Object> details = new LinkedHashMap<>();
+        if (circuitBreakers != null) {
+            Map<String, Object> circuitBreakersDetails = new TreeMap<>();
+            for (MinioCircuitBreaker circuitBreaker : circuitBreakers.getAll()) {
+                Map<String, Object> circuitBreakerDetails = new LinkedHashMap<>();
+                circuitBreakerDetails.put("bucketName", circuitBreaker.getBucket());
+                circuitBreakerDetails.put("state", circuitBreaker.getState());
+                circuitBreakerDetails.put("failureRate", circuitBreaker.getFailureRate());
+                circuitBreakerDetails.put("slowCallRate", circuitBreaker.getSlowCallRate());
+                if (circuitBreaker.getAvailableConcurrentCalls() >= 0) {
+                    circuitBreakerDetails.put("availableConcurrentCalls", circuitBreaker.getAvailableConcurrentCalls());
+                }
+                circuitBreakersDetails.put(circuitBreaker.getTarget(), circuitBreakerDetails);
+            }
+            details.put("circuitBreaker", circuitBreakersDetails);
+        }
+        return details;
+    }
 }
@@ -0,0 +1,340 @@
+/*
+ * Copyright Jordan LEFEBURE © 2019.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.jlefebure.spring.boot.minio;
+
+import okhttp3.Call;
+import okhttp3.Interceptor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Send a duplicate of a read request when the first one is slower than usual, and keep the first response.
+ * <p>
+ * The first request runs on the calling thread. When it has not received its response headers after the
+ * {@code spring.minio.hedge.percentile} of the latency of the last requests of the same operation, a duplicate is sent
+ * on a bounded pool of {@code spring.minio.hedge.max-concurrent-hedges} threads. No request is hedged until enough
+ * latencies are recorded, and at most {@code spring.minio.hedge.max-hedges-per-second} requests are hedged each second,
+ * so hedging cannot double the load when Minio is slow.
+ * <p>
+ * Interrupting a thread does not abort a blocking read of OkHttp, so the losing request is cancelled through its
+ * OkHttp call, recorded by {@link #INTERCEPTOR} on the HTTP client of the starter. With another HTTP client, the losing
+ * request runs until its response, which is then discarded.
+ *
+ * @author Jordan LEFEBURE
+ */
+class MinioHedging {
+
+    private static final int WINDOW_SIZE = 1024;
+    private static final int MINIMUM_SAMPLES = 100;
+    private static final int REFRESH_INTERVAL = 64;
+
+    private static final int PENDING = 0;
+    private static final int HEDGING = 1;
+    private static final int DONE = 2;
+
+    /**
+     * Request running on the current thread, if it is hedged.
+     */
+    private static final ThreadLocal<Attempt> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Record the OkHttp call of a hedged request, so it can be cancelled if the other request wins. Installed as a
+     * network interceptor, it runs once the connection is open : a call cancelled while connecting is not aborted by
+     * OkHttp, so it is cancelled again here.
+     */
+    static final Interceptor INTERCEPTOR = chain -> {
+        Attempt attempt = CURRENT.get();
+        if (attempt != null) {
+            attempt.started(chain.call());
+        }
+        return chain.proceed(chain.request());
+    };
+
+    private final double percentile;
+    private final long minDelay;
+    private final long maxHedgesPerSecond;
+    private final ThreadPoolExecutor executor;
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+
+    private final AtomicLong hedges = new AtomicLong();
+    private final AtomicLong second = new AtomicLong();
+
+    MinioHedging(MinioConfigurationProperties.Hedge properties) {
+        this.percentile = Math.max(0, Math.min(100, properties.getPercentile()));
+        this.minDelay = properties.getMinDelay().toNanos();
+        this.maxHedgesPerSecond = properties.getMaxHedgesPerSecond();
+        // A duplicate request is not sent when all threads are busy
+        this.executor = new ThreadPoolExecutor(0, Math.max(1, properties.getMaxConcurrentHedges()), 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), new CustomizableThreadFactory("minio-hedge-"));
+        this.scheduler = new ScheduledThreadPoolExecutor(1, new CustomizableThreadFactory("minio-hedge-timer-"));
+        this.scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Run a request on the calling thread, and a duplicate of it if it does not complete within the hedging delay of
+     * the operation.
+     *
+     * @param operation Operation of the request, which has its own latencies
+     * @param context   Context of the operation, notified when the request is hedged
+     * @param request   The request, which must be idempotent
+     * @param discard   Release the response of the losing request, if it is received
+     * @return The response of the first request to succeed
+     * @throws Exception the error of the first request, if all requests fail
+     */
+    <T> T call(String operation, MinioInstrumentation.Context context, Callable<T> request, Consumer<T> discard) throws Exception {
+        Window window = window(operation);
+        long delay = window.delay;
+        if (delay < 0) {
+            long start = System.nanoTime();
+            T result = request.call();
+            window.record(System.nanoTime() - start);
+            return result;
+        }
+
+        Race<T> race = new Race<>(window, request, discard);
+        Callable<Void> hedge = context.wrap(() -> {
+            race.runHedge();
+            return null;
+        });
+        ScheduledFuture<?> timer = scheduler.schedule(() -> {
+            if (race.launch(hedge)) {
+                context.hedge();
+            }
+        }, delay, TimeUnit.NANOSECONDS);
+
+        T result;
+        CURRENT.set(race.primary);
+        try {
+            long start = System.nanoTime();
+            result = request.call();
+            window.record(System.nanoTime() - start);
+        } catch (Exception e) {
+            if (race.state.compareAndSet(PENDING, DONE)) {
+                timer.cancel(false);
+                throw e;
+            }
+            // The primary request failed, or was cancelled because the duplicate won
+            return race.awaitHedge(e);
+        } finally {
+            CURRENT.remove();
+        }
+
+        if (race.won.compareAndSet(false, true)) {
+            if (race.state.compareAndSet(PENDING, DONE)) {
+                timer.cancel(false);
+            } else {
+                race.hedge.cancel();
+            }
+            return result;
+        }
+        // The duplicate won, but the primary request could not be cancelled
+        discard.accept(result);
+        return race.awaitHedge(null);
+    }
+
+    private Window window(String operation) {
+        Window window = windows.get(operation);
+        return window != null ? window : windows.computeIfAbsent(operation, name -> new Window());
+    }
+
+    /**
+     * Take a hedge from the hedges allowed during the current second.
+     */
+    private boolean tryAcquire() {
+        long now = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime());
+        long current = second.get();
+        if (current != now && second.compareAndSet(current, now)) {
+            hedges.set(0);
+        }
+        return hedges.incrementAndGet() <= maxHedgesPerSecond;
+    }
+
+    void shutdown() {
+        scheduler.shutdownNow();
+        executor.shutdown();
+    }
+
+    /**
+     * Latencies of the last requests of an operation, and the hedging delay computed from them.
+     */
+    private class Window {
+        private final long[] latencies = new long[WINDOW_SIZE];
+        private long samples;
+        private volatile long delay = -1;
+
+        /**
+         * Record the latency of a request, and compute the hedging delay again every few requests.
+         */
+        private synchronized void record(long latency) {
+            latencies[(int) (samples % WINDOW_SIZE)] = latency;
+            samples++;
+            if (samples >= MINIMUM_SAMPLES && samples % REFRESH_INTERVAL == 0) {
+                int count = (int) Math.min(samples, WINDOW_SIZE);
+                long[] sorted = Arrays.copyOf(latencies, count);
+                Arrays.sort(sorted);
+                int index = (int) Math.ceil(percentile / 100 * count) - 1;
+                delay = Math.max(minDelay, sorted[Math.max(0, Math.min(count - 1, index))]);
+            }
+        }
+    }
+
+    /**
+     * A primary request and its duplicate. The first to succeed sets {@code won} and cancels the other one.
+     */
+    private class Race<T> {
+        private final Window window;
+        private final Callable<T> request;
+        private final Consumer<T> discard;
+        private final Attempt primary = new Attempt();
+        private final Attempt hedge = new Attempt();
+        private final AtomicBoolean won = new AtomicBoolean();
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        private final CompletableFuture<T> hedged = new CompletableFuture<>();
+
+        private Race(Window window, Callable<T> request, Consumer<T> discard) {
+            this.window = window;
+            this.request = request;
+            this.discard = discard;
+        }
+
+        /**
+         * Start the duplicate request, unless the primary one completed, the hedges of the second are exhausted, or
+         * all hedging threads are busy.
+         *
+         * @return Whether the duplicate request is sent
+         */
+        private boolean launch(Callable<Void> task) {
+            if (!state.compareAndSet(PENDING, HEDGING)) {
+                return false;
+            }
+            if (tryAcquire()) {
+                try {
+                    executor.execute(() -> {
+                        try {
+                            task.call();
+                        } catch (Exception e) {
+                            hedged.completeExceptionally(e);
+                        }
+                    });
+                    return true;
+                } catch (RejectedExecutionException e) {
+                    // All hedging threads are busy
+                }
+            }
+            hedged.completeExceptionally(new CancellationException("Request not hedged"));
+            return false;
+        }
+
+        private void runHedge() {
+            CURRENT.set(hedge);
+            try {
+                long start = System.nanoTime();
+                T result = request.call();
+                window.record(System.nanoTime() - start);
+                if (won.compareAndSet(false, true)) {
+                    primary.cancel();
+                    if (hedged.complete(result)) {
+                        return;
+                    }
+                }
+                // Lost, or the caller gave up waiting
+                discard.accept(result);
+                hedged.completeExceptionally(new CancellationException("Hedged request lost"));
+            } catch (Throwable e) {
+                hedged.completeExceptionally(e);
+            } finally {
+                CURRENT.remove();
+            }
+        }
+
+        /**
+         * Wait for the duplicate request, after the primary one failed or lost.
+         *
+         * @param error Error of the primary request, thrown if the duplicate fails too
+         */
+        private T awaitHedge(Exception error) throws Exception {
+            try {
+                return hedged.get();
+            } catch (CancellationException e) {
+                // Not hedged
+                if (error != null) {
+                    throw error;
+                }
+                throw e;
+            } catch (ExecutionException e) {
+                if (error != null) {
+                    throw error;
+                }
+                Throwable cause = e.getCause();
+                throw cause instanceof Exception ? (Exception) cause : e;
+            } catch (InterruptedException e) {
+                // No request can win anymore, a response received from now on is discarded
+                won.set(true);
+                hedge.cancel();
+                if (!hedged.completeExceptionally(new CancellationException("Hedged request abandoned"))
+                        && !hedged.isCompletedExceptionally()) {
+                    discard.accept(hedged.getNow(null));
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * OkHttp call of a hedged request, cancelled if the other request wins.
+     */
+    private static class Attempt {
+        private Call call;
+        private boolean cancelled;
+
+        private synchronized void started(Call call) {
+            this.call = call;
+            if (cancelled) {
+                call.cancel();
+            }
+        }
+
+        private void cancel() {
+            Call running;
+            synchronized (this) {
+                cancelled = true;
+                running = call;
+            }
+            if (running != null) {
+                running.cancel();
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright Jordan LEFEBURE © 2019.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.jlefebure.spring.boot.minio;
+
+import okhttp3.OkHttpClient;
+
+/**
+ * Callback to customize the {@link OkHttpClient} used by the Minio clients, after the {@code spring.minio.http.*}
+ * properties have been applied. All beans implementing this interface are called in order.
+ *
+ * @author Jordan LEFEBURE
+ */
+@FunctionalInterface
+public interface MinioHttpClientCustomizer {
+
+    /**
+     * Customize the HTTP client builder.
+     *
+     * @param builder Builder of the HTTP client
+     */
+    void customize(OkHttpClient.Builder builder);
+
+    /**
+     * Customize the HTTP client builder of the default bucket or of a target. By default, all HTTP clients are
+     * customized the same way with {@link #customize(OkHttpClient.Builder)}.
+     *
+     * @param target  {@link MinioTargets#DEFAULT}, or the name of the target
+     * @param builder Builder of the HTTP client
+     */
+    default void customize(String target, OkHttpClient.Builder builder) {
+        customize(builder);
+    }
+}
@@ -0,0 +1,307 @@
+/*
+ * Copyright Jordan LEFEBURE © 2019.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.jlefebure.spring.boot.minio;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.HttpUrl;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import org.springframework.lang.Nullable;
+
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * OkHttp event listener recording the phases of each call of the Minio client : connection setup, TLS handshake,
+ * time to first byte and bytes sent and received. All meters are tagged by bucket, S3 operation and target.
+ * A new listener is created for each call, so timestamps are kept in fields. Meters are registered once per bucket and
+ * operation and cached by the factory, so recording an event does not go through the registry.
+ * <p>
+ * The bucket is read from the first segment of the path for path-style requests, and from the host for virtual-host
+ * style requests, like the ones sent to Amazon S3, when the host starts with the bucket of the target.
+ *
+ * @author Jordan LEFEBURE
+ */
+class MinioHttpEventListener extends EventListener {
+
+    private final Factory factory;
+
+    private Meters meters;
+    private long connectStart;
+    private long secureConnectStart;
+    private long requestSent;
+
+    private MinioHttpEventListener(Factory factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * @param meterRegistry Registry of the meters, resolved on the first call since the HTTP client may be built before it
+     * @param target        {@link MinioTargets#DEFAULT}, or the name of the target using the HTTP client
+     * @param bucket        Bucket of the target, or null if unknown
+     * @return A factory creating a listener for each call
+     */
+    static EventListener.Factory factory(Supplier<MeterRegistry> meterRegistry, String metricName, String target, @Nullable String bucket) {
+        return new Factory(meterRegistry, metricName, target, bucket);
+    }
+
+    @Override
+    public void callStart(Call call) {
+        Request request = call.request();
+        HttpUrl url = request.url();
+        boolean virtualHost = factory.hostPrefix != null && url.host().startsWith(factory.hostPrefix);
+        String bucket = virtualHost ? factory.bucket : bucket(url);
+        meters = factory.meters(bucket, operation(request, virtualHost));
+    }
+
+    @Override
+    public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+        connectStart = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectStart(Call call) {
+        secureConnectStart = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectEnd(Call call, Handshake handshake) {
+        record(meters.tls(), secureConnectStart);
+    }
+
+    @Override
+    public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+        record(meters.connect(), connectStart);
+    }
+
+    @Override
+    public void requestHeadersEnd(Call call, Request request) {
+        requestSent = System.nanoTime();
+    }
+
+    @Override
+    public void requestBodyEnd(Call call, long byteCount) {
+        requestSent = System.nanoTime();
+        meters.sent().record(byteCount);
+    }
+
+    @Override
+    public void responseHeadersStart(Call call) {
+        record(meters.ttfb(), requestSent);
+    }
+
+    @Override
+    public void responseBodyEnd(Call call, long byteCount) {
+        meters.received().record(byteCount);
+    }
+
+    private static void record(Timer timer, long start) {
+        if (start != 0) {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * The bucket of a path-style request is the first segment of the path.
+     */
+    private static String bucket(HttpUrl url) {
+        List<String> segments = url.pathSegments();
+        return segments.isEmpty() || segments.get(0).isEmpty() ? "none" : segments.get(0);
+    }
+
+    /**
+     * Guess the S3 operation from the method, the path and the query of the request.
+     *
+     * @param virtualHost Whether the bucket is in the host rather than in the path
+     */
+    static String operation(Request request, boolean virtualHost) {
+        HttpUrl url = request.url();
+        List<String> segments = url.pathSegments();
+        int objectSegment = virtualHost ? 0 : 1;
+        boolean bucket = virtualHost || !segments.get(0).isEmpty();
+        boolean object = segments.size() > objectSegment && !segments.get(objectSegment).isEmpty();
+        boolean multipart = has(url, "uploadId");
+        switch (request.method()) {
+            case "GET":
+                if (!object) {
+                    if (has(url, "location")) {
+                        return "getBucketLocation";
+                    }
+                    if (has(url, "events")) {
+                        return "listenBucketNotification";
+                    }
+                    return bucket ? "listObjects" : "listBuckets";
+                }
+                return "getObject";
+            case "HEAD":
+                return object ? "statObject" : "bucketExists";
+            case "PUT":
+                if (!object) {
+                    return "makeBucket";
+                }
+                return multipart ? "uploadPart" : "putObject";
+            case "POST":
+                if (has(url, "delete")) {
+                    return "removeObjects";
+                }
+                return multipart ? "completeMultipartUpload" : "createMultipartUpload";
+            case "DELETE":
+                if (!object) {
+                    return "removeBucket";
+                }
+                return multipart ? "abortMultipartUpload" : "removeObject";
+            default:
+                return request.method().toLowerCase();
+        }
+    }
+
+    /**
+     * Query parameters of S3 requests may have no value, like {@code ?delete}.
+     */
+    private static boolean has(HttpUrl url, String parameter) {
+        return url.queryParameterNames().contains(parameter);
+    }
+
+    private static class Factory implements EventListener.Factory {
+        private final Supplier<MeterRegistry> meterRegistryProvider;
+        private final String metricName;
+        private final String target;
+        private final String bucket;
+        private final String hostPrefix;
+        private final Map<String, Map<String, Meters>> meters = new ConcurrentHashMap<>();
+        private volatile MeterRegistry meterRegistry;
+
+        private Factory(Supplier<MeterRegistry> meterRegistryProvider, String metricName, String target, String bucket) {
+            this.meterRegistryProvider = meterRegistryProvider;
+            this.metricName = metricName;
+            this.target = target;
+            this.bucket = bucket;
+            this.hostPrefix = bucket != null ? bucket + "." : null;
+        }
+
+        @Override
+        public EventListener create(Call call) {
+            return new MinioHttpEventListener(this);
+        }
+
+        private Meters meters(String bucket, String operation) {
+            return meters.computeIfAbsent(bucket, key -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(operation, key -> new Meters(registry(), metricName,
+                            Tags.of("bucket", bucket, "operation", operation, "target", target)));
+        }
+
+        private MeterRegistry registry() {
+            MeterRegistry registry = meterRegistry;
+            if (registry == null) {
+                registry = meterRegistryProvider.get();
+                meterRegistry = registry;
+            }
+            return registry;
+        }
+    }
+
+    /**
+     * Meters of the calls of an operation on a bucket. Each one is registered on its first event, so a plain HTTP
+     * endpoint has no TLS timer, and a request without body no sent bytes.
+     */
+    private static class Meters {
+        private final MeterRegistry meterRegistry;
+        private final String metricName;
+        private final Tags tags;
+        private volatile Timer connect;
+        private volatile Timer tls;
+        private volatile Timer ttfb;
+        private volatile DistributionSummary sent;
+        private volatile DistributionSummary received;
+
+        private Meters(MeterRegistry meterRegistry, String metricName, Tags tags) {
+            this.meterRegistry = meterRegistry;
+            this.metricName = metricName;
+            this.tags = tags;
+        }
+
+        private Timer connect() {
+            Timer timer = connect;
+            if (timer == null) {
+                timer = timer("connect");
+                connect = timer;
+            }
+            return timer;
+        }
+
+        private Timer tls() {
+            Timer timer = tls;
+            if (timer == null) {
+                timer = timer("tls");
+                tls = timer;
+            }
+            return timer;
+        }
+
+        private Timer ttfb() {
+            Timer timer = ttfb;
+            if (timer == null) {
+                timer = timer("ttfb");
+                ttfb = timer;
+            }
+            return timer;
+        }
+
+        private DistributionSummary sent() {
+            DistributionSummary summary = sent;
+            if (summary == null) {
+                summary = summary("sent");
+                sent = summary;
+            }
+            return summary;
+        }
+
+        private DistributionSummary received() {
+            DistributionSummary summary = received;
+            if (summary == null) {
+                summary = summary("received");
+                received = summary;
+            }
+            return summary;
+        }
+
+        // Registering again a meter returns the existing one, so concurrent first events are harmless
+        private Timer timer(String phase) {
+            return Timer.builder(metricName + ".http." + phase)
+                    .tags(tags)
+                    .register(meterRegistry);
+        }
+
+        private DistributionSummary summary(String direction) {
+            return DistributionSummary.builder(metricName + ".http.bytes." + direction)
+                    .baseUnit("bytes")
+                    .tags(tags)
+                    .register(meterRegistry);
+        }
+    }
+}
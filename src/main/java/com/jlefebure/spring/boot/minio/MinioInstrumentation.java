@@ -0,0 +1,201 @@
+/*
+ * Copyright Jordan LEFEBURE © 2019.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.jlefebure.spring.boot.minio;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Hook called by {@link MinioService} around each operation, used to record metrics and traces. All beans implementing
+ * this interface are called in order.
+ * Operations returning a stream, like {@link MinioService#get(java.nio.file.Path)}, are stopped when the stream is closed.
+ *
+ * @author Jordan LEFEBURE
+ */
+public interface MinioInstrumentation {
+
+    /**
+     * Instrumentation doing nothing, used when no instrumentation is registered.
+     */
+    MinioInstrumentation NOOP = (operation, bucket, object) -> Context.NOOP;
+
+    /**
+     * Called when an operation starts.
+     *
+     * @param operation Name of the operation, like {@code getObject}
+     * @param bucket    Bucket name
+     * @param object    Object name, or prefix for operations on multiple objects
+     * @return Context of the operation, which must be stopped exactly once
+     */
+    Context start(String operation, String bucket, String object);
+
+    /**
+     * Propagate the operation running on the calling thread to a task run on another thread, like the parts of an
+     * upload on the task executor.
+     *
+     * @param task Task to run on another thread
+     * @param <T>  Result of the task
+     * @return The task, wrapped to run in the operation of the calling thread
+     */
+    default <T> Callable<T> wrap(Callable<T> task) {
+        return task;
+    }
+
+    /**
+     * Instrumentation of the operations on a target of {@code spring.minio.targets}.
+     *
+     * @param target Name of the target
+     * @return An instrumentation recording the target of the operations, or this one if the target is not recorded
+     */
+    default MinioInstrumentation forTarget(String target) {
+        return this;
+    }
+
+    /**
+     * Combine instrumentations, called in order.
+     *
+     * @param instrumentations Instrumentations to combine
+     * @return An instrumentation calling all the given ones, or {@link #NOOP} if there is none
+     */
+    static MinioInstrumentation of(List<MinioInstrumentation> instrumentations) {
+        if (instrumentations.isEmpty()) {
+            return NOOP;
+        }
+        if (instrumentations.size() == 1) {
+            return instrumentations.get(0);
+        }
+        return new MinioInstrumentation() {
+            @Override
+            public Context start(String operation, String bucket, String object) {
+                List<Context> contexts = new ArrayList<>(instrumentations.size());
+                for (MinioInstrumentation instrumentation : instrumentations) {
+                    contexts.add(instrumentation.start(operation, bucket, object));
+                }
+                return new Context() {
+                    @Override
+                    public void bytes(long count) {
+                        contexts.forEach(context -> context.bytes(count));
+                    }
+
+                    @Override
+                    public void parts(int count) {
+                        contexts.forEach(context -> context.parts(count));
+                    }
+
+                    @Override
+                    public void retry() {
+                        contexts.forEach(Context::retry);
+                    }
+
+                    @Override
+                    public void hedge() {
+                        contexts.forEach(Context::hedge);
+                    }
+
+                    @Override
+                    public <T> Callable<T> wrap(Callable<T> task) {
+                        Callable<T> wrapped = task;
+                        for (Context context : contexts) {
+                            wrapped = context.wrap(wrapped);
+                        }
+                        return wrapped;
+                    }
+
+                    @Override
+                    public void stop(Throwable error) {
+                        contexts.forEach(context -> context.stop(error));
+                    }
+                };
+            }
+
+            @Override
+            public MinioInstrumentation forTarget(String target) {
+                List<MinioInstrumentation> targetInstrumentations = new ArrayList<>(instrumentations.size());
+                for (MinioInstrumentation instrumentation : instrumentations) {
+                    targetInstrumentations.add(instrumentation.forTarget(target));
+                }
+                return of(targetInstrumentations);
+            }
+
+            @Override
+            public <T> Callable<T> wrap(Callable<T> task) {
+                Callable<T> wrapped = task;
+                for (MinioInstrumentation instrumentation : instrumentations) {
+                    wrapped = instrumentation.wrap(wrapped);
+                }
+                return wrapped;
+            }
+        };
+    }
+
+    /**
+     * Context of a running operation.
+     */
+    interface Context {
+
+        Context NOOP = error -> {
+        };
+
+        /**
+         * Called with the number of bytes transferred by the operation. May be called multiple times.
+         *
+         * @param count Number of bytes
+         */
+        default void bytes(long count) {
+        }
+
+        /**
+         * Called with the number of parts of an operation split in multiple requests, like a multipart upload, a
+         * segmented download or a batch removal.
+         *
+         * @param count Number of parts
+         */
+        default void parts(int count) {
+        }
+
+        /**
+         * Called each time a request of the operation is retried.
+         */
+        default void retry() {
+        }
+
+        /**
+         * Called when a duplicate of a slow request of the operation is sent.
+         */
+        default void hedge() {
+        }
+
+        /**
+         * Make this operation the current one while a task runs, so requests sent by the task are attached to it.
+         *
+         * @param task Task of the operation
+         * @param <T>  Result of the task
+         * @return The task, wrapped to run in this operation
+         */
+        default <T> Callable<T> wrap(Callable<T> task) {
+            return task;
+        }
+
+        /**
+         * Called when the operation ends.
+         *
+         * @param error Error of the operation, or null if it succeeded
+         */
+        void stop(Throwable error);
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright Jordan LEFEBURE © 2019.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.jlefebure.spring.boot.minio;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream reporting to an instrumentation context the bytes read, and stopping the context when closed,
+ * so the operation covers the whole transfer and not only the opening of the stream.
+ *
+ * @author Jordan LEFEBURE
+ */
+class MinioInstrumentedInputStream extends FilterInputStream {
+
+    private final MinioInstrumentation.Context context;
+    private Throwable error;
+    private boolean stopped;
+
+    MinioInstrumentedInputStream(InputStream in, MinioInstrumentation.Context context) {
+        super(in);
+        this.context = context;
+    }
+
+    @Override
+    public int read() throws IOException {
+        try {
+            int read = super.read();
+            if (read >= 0) {
+                context.bytes(1);
+            }
+            return read;
+        } catch (IOException e) {
+            error = e;
+            throw e;
+        }
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        try {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                context.bytes(read);
+            }
+            return read;
+        } catch (IOException e) {
+            error = e;
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            if (!stopped) {
+                stopped = true;
+                context.stop(error);
+            }
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright Jordan LEFEBURE © 2019.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.jlefebure.spring.boot.minio;
+
+import com.jlefebure.spring.boot.minio.notification.MinioNotification;
+import io.minio.StatObjectResponse;
+import io.minio.errors.ErrorResponseException;
+import io.minio.messages.Event;
+import io.minio.messages.NotificationRecords;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Bounded in-memory cache of object metadata, used by {@link MinioService#getMetadata(java.nio.file.Path)}.
+ * Entries expire after {@code spring.minio.cache.ttl}, and missing objects are cached for {@code spring.minio.cache.negative-ttl}.
+ * Entries are invalidated when the object is written or removed through {@link MinioService}, and when the bucket
+ * notifies that an object has been created or removed.
+ *
+ * @author Jordan LEFEBURE
+ */
+@Component
+@ConditionalOnProperty(prefix = "spring.minio.cache", name = "enabled", havingValue = "true")
+public class MinioMetadataCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MinioMetadataCache.class);
+
+    private final long ttl;
+    private final long negativeTtl;
+    private final Map<String, CacheEntry> entries;
+
+    /**
+     * Loads in progress by object name. A metadata fetched while its object was invalidated is not cached, without
+     * discarding the loads of other objects.
+     */
+    private final Map<String, Load> loads = new HashMap<>();
+
+    /**
+     * Incremented when a load starts or an object is invalidated, to order them.
+     */
+    private long sequence;
+
+    /**
+     * Sequence of the last invalidation of the whole cache.
+     */
+    private long allInvalidatedAt;
+
+    @Autowired
+    public MinioMetadataCache(MinioConfigurationProperties minioConfigurationProperties) {
+        MinioConfigurationProperties.Cache cache = minioConfigurationProperties.getCache();
+        this.ttl = cache.getTtl().toNanos();
+        this.negativeTtl = cache.getNegativeTtl().toNanos();
+        int maxSize = cache.getMaxSize();
+        this.entries = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Get the metadata of an object from the cache, or load it if it is absent or expired.
+     *
+     * @param object Object name
+     * @param loader Fetch the metadata of the object from Minio
+     * @return Metadata of the object
+     * @throws Exception the error thrown by the loader, or the cached error if the object is known to be missing
+     */
+    StatObjectResponse get(String object, Callable<StatObjectResponse> loader) throws Exception {
+        long loadSequence;
+        synchronized (this) {
+            CacheEntry entry = entries.get(object);
+            if (entry != null && entry.expiresAt - System.nanoTime() > 0) {
+                if (entry.error != null) {
+                    throw entry.error;
+                }
+                return entry.response;
+            }
+            loadSequence = ++sequence;
+            loads.computeIfAbsent(object, key -> new Load()).count++;
+        }
+
+        try {
+            StatObjectResponse response = loader.call();
+            put(object, new CacheEntry(response, null, System.nanoTime() + ttl), loadSequence);
+            return response;
+        } catch (ErrorResponseException e) {
+            if (negativeTtl > 0 && "NoSuchKey".equals(e.errorResponse().code())) {
+                put(object, new CacheEntry(null, e, System.nanoTime() + negativeTtl), loadSequence);
+            }
+            throw e;
+        } finally {
+            release(object);
+        }
+    }
+
+    /**
+     * Cache a loaded entry, unless the object or the whole cache was invalidated since the load started.
+     */
+    private synchronized void put(String object, CacheEntry entry, long loadSequence) {
+        Load load = loads.get(object);
+        if (loadSequence > allInvalidatedAt && (load == null || loadSequence > load.invalidatedAt)) {
+            entries.put(object, entry);
+        }
+    }
+
+    private synchronized void release(String object) {
+        Load load = loads.get(object);
+        if (load != null && --load.count == 0) {
+            loads.remove(object);
+        }
+    }
+
+    /**
+     * Remove the metadata of an object from the cache.
+     *
+     * @param object Object name
+     */
+    public synchronized void invalidate(String object) {
+        entries.remove(object);
+        Load load = loads.get(object);
+        if (load != null) {
+            load.invalidatedAt = ++sequence;
+        }
+    }
+
+    /**
+     * Remove all metadata from the cache.
+     */
+    public synchronized void invalidateAll() {
+        entries.clear();
+        allInvalidatedAt = ++sequence;
+    }
+
+    /**
+     * Invalidate objects created or removed in the bucket, including by other applications.
+     */
+    @MinioNotification({"s3:ObjectCreated:*", "s3:ObjectRemoved:*"})
+    public void handleBucketEvents(NotificationRecords records) {
+        for (Event event : records.events()) {
+            try {
+                // Object keys of events are URL encoded
+                invalidate(URLDecoder.decode(event.objectName(), "UTF-8"));
+            } catch (UnsupportedEncodingException | IllegalArgumentException e) {
+                LOGGER.warn("Cannot decode object name {}, invalidating the whole metadata cache", event.objectName());
+                invalidateAll();
+            }
+        }
+    }
+
+    /**
+     * Loads in progress of an object, and sequence of its last invalidation while they run.
+     */
+    private static class Load {
+        private int count;
+        private long invalidatedAt;
+    }
+
+    private static class CacheEntry {
+        private final StatObjectResponse response;
+        private final Exception error;
+        private final long expiresAt;
+
+        private CacheEntry(StatObjectResponse response, Exception error, long expiresAt) {
+            this.response = response;
+            this.error = error;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
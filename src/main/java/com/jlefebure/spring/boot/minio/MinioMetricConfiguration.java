@@ -17,26 +17,33 @@
 package com.jlefebure.spring.boot.minio;
 
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
 import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.okhttp3.OkHttpConnectionPoolMetrics;
 import io.minio.MinioClient;
-import org.aspectj.lang.ProceedingJoinPoint;
-import org.aspectj.lang.annotation.Around;
-import org.aspectj.lang.annotation.Aspect;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.actuate.autoconfigure.health.ConditionalOnEnabledHealthIndicator;
 import org.springframework.boot.actuate.autoconfigure.health.HealthContributorAutoConfiguration;
 import org.springframework.boot.actuate.autoconfigure.web.server.ManagementContextAutoConfiguration;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.lang.Nullable;
 
 import javax.annotation.PostConstruct;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
-@Aspect
 @Configuration
 @ConditionalOnClass({MinioClient.class, ManagementContextAutoConfiguration.class})
 @ConditionalOnEnabledHealthIndicator("minio")
@@ -46,168 +53,167 @@ public class MinioMetricConfiguration {
 
     private final MeterRegistry meterRegistry;
     private final MinioConfigurationProperties minioConfigurationProperties;
-
-    private Timer listOkTimer;
-    private Timer listKoTimer;
-    private Timer getOkTimer;
-    private Timer getKoTimer;
-    private Timer putOkTimer;
-    private Timer putKoTimer;
-    private Timer removeOkTimer;
-    private Timer removeKoTimer;
-    private Timer listBucketOkTimer;
-    private Timer listBucketKoTimer;
+    private final OkHttpClient minioHttpClient;
+    private final MinioCircuitBreakers circuitBreakers;
+    private final MinioNotificationHandlers notificationHandlers;
+    private final MinioTargets targets;
 
     @Autowired
-    public MinioMetricConfiguration(MeterRegistry meterRegistry, MinioConfigurationProperties minioConfigurationProperties) {
+    public MinioMetricConfiguration(MeterRegistry meterRegistry, MinioConfigurationProperties minioConfigurationProperties,
+                                    @Qualifier("minioHttpClient") OkHttpClient minioHttpClient,
+                                    @Nullable MinioCircuitBreakers circuitBreakers,
+                                    MinioNotificationHandlers notificationHandlers, MinioTargets targets) {
         this.meterRegistry = meterRegistry;
         this.minioConfigurationProperties = minioConfigurationProperties;
+        this.minioHttpClient = minioHttpClient;
+        this.circuitBreakers = circuitBreakers;
+        this.notificationHandlers = notificationHandlers;
+        this.targets = targets;
     }
 
-    @PostConstruct
-    public void initTimers() {
-        listOkTimer = Timer
-                .builder(minioConfigurationProperties.getMetricName())
-                .tag("operation", "listObjects")
-                .tag("status", "ok")
-                .tag("bucket", minioConfigurationProperties.getBucket())
-                .register(meterRegistry);
-
-        listKoTimer = Timer
-                .builder(minioConfigurationProperties.getMetricName())
-                .tag("operation", "listObjects")
-                .tag("status", "ko")
-                .tag("bucket", minioConfigurationProperties.getBucket())
-                .register(meterRegistry);
-
-        getOkTimer = Timer
-                .builder(minioConfigurationProperties.getMetricName())
-                .tag("operation", "getObject")
-                .tag("status", "ok")
-                .tag("bucket", minioConfigurationProperties.getBucket())
-                .register(meterRegistry);
-
-        getKoTimer = Timer
-                .builder(minioConfigurationProperties.getMetricName())
-                .tag("operation", "getObject")
-                .tag("status", "ko")
-                .tag("bucket", minioConfigurationProperties.getBucket())
-                .register(meterRegistry);
-
-        putOkTimer = Timer
-                .builder(minioConfigurationProperties.getMetricName())
-                .tag("operation", "putObject")
-                .tag("status", "ok")
-                .tag("bucket", minioConfigurationProperties.getBucket())
-                .register(meterRegistry);
-
-        putKoTimer = Timer
-                .builder(minioConfigurationProperties.getMetricName())
-                .tag("operation", "putObject")
-                .tag("status", "ko")
-                .tag("bucket", minioConfigurationProperties.getBucket())
-                .register(meterRegistry);
-
-        listBucketOkTimer = Timer
-                .builder(minioConfigurationProperties.getMetricName() + ".list.bucket")
-                .tag("operation", "listBuckets")
-                .tag("status", "ok")
-                .register(meterRegistry);
-
-        listBucketKoTimer = Timer
-                .builder(minioConfigurationProperties.getMetricName() + ".list.bucket")
-                .tag("operation", "listBuckets")
-                .tag("status", "ko")
-                .register(meterRegistry);
-
-        removeOkTimer = Timer
-                .builder(minioConfigurationProperties.getMetricName())
-                .tag("operation", "removeObject")
-                .tag("status", "ok")
-                .tag("bucket", minioConfigurationProperties.getBucket())
-                .register(meterRegistry);
-
-        removeKoTimer = Timer
-                .builder(minioConfigurationProperties.getMetricName())
-                .tag("operation", "removeObject")
-                .tag("status", "ko")
-                .tag("bucket", minioConfigurationProperties.getBucket())
-                .register(meterRegistry);
+    /**
+     * Time each operation of {@link MinioService}, until the returned stream is closed for downloads. Declared static,
+     * because the services of {@link MinioTargets} are instrumented before this configuration is created.
+     */
+    @Bean
+    public static MinioInstrumentation minioMetrics(MeterRegistry meterRegistry, MinioConfigurationProperties minioConfigurationProperties) {
+        return new MinioMetrics(meterRegistry, minioConfigurationProperties.getMetricName());
     }
 
-
-    @ConditionalOnBean(MinioClient.class)
-    @Around("execution(* io.minio.MinioClient.getObject(..))")
-    public Object getMeter(ProceedingJoinPoint pjp) throws Throwable {
-        long l = System.currentTimeMillis();
-
-        try {
-            Object proceed = pjp.proceed();
-            getOkTimer.record(System.currentTimeMillis() - l, TimeUnit.MILLISECONDS);
-            return proceed;
-        } catch (Exception e) {
-            getKoTimer.record(System.currentTimeMillis() - l, TimeUnit.MILLISECONDS);
-            throw e;
-        }
+    /**
+     * Record the phases of each HTTP call of the Minio client. Declared static, and resolving the registry lazily,
+     * because the HTTP client is built before this configuration.
+     */
+    @Bean
+    public static MinioHttpClientCustomizer minioHttpMetricsCustomizer(ObjectProvider<MeterRegistry> meterRegistry,
+                                                                       MinioConfigurationProperties minioConfigurationProperties) {
+        String metricName = minioConfigurationProperties.getMetricName();
+        return new MinioHttpClientCustomizer() {
+            @Override
+            public void customize(OkHttpClient.Builder builder) {
+                customize(MinioTargets.DEFAULT, builder);
+            }
+
+            @Override
+            public void customize(String target, OkHttpClient.Builder builder) {
+                MinioConfigurationProperties.Target properties = minioConfigurationProperties.getTargets().get(target);
+                String bucket = MinioTargets.DEFAULT.equals(target) ? minioConfigurationProperties.getBucket()
+                        : properties != null ? properties.getBucket() : null;
+                builder.eventListenerFactory(MinioHttpEventListener.factory(meterRegistry::getObject, metricName, target, bucket));
+            }
+        };
     }
 
-    @ConditionalOnBean(MinioClient.class)
-    @Around("execution(* io.minio.MinioClient.listObjects(..))")
-    public Object listMeter(ProceedingJoinPoint pjp) throws Throwable {
-        long l = System.currentTimeMillis();
-
-        try {
-            Object proceed = pjp.proceed();
-            listOkTimer.record(System.currentTimeMillis() - l, TimeUnit.MILLISECONDS);
-            return proceed;
-        } catch (Exception e) {
-            listKoTimer.record(System.currentTimeMillis() - l, TimeUnit.MILLISECONDS);
-            throw e;
+    /**
+     * Publish the dispatcher and connection pool of the HTTP client of the default bucket and of each target.
+     */
+    @PostConstruct
+    public void initHttpClientMetrics() {
+        initHttpClientMetrics(minioHttpClient, Tags.of("bucket", minioConfigurationProperties.getBucket(), "target", MinioTargets.DEFAULT));
+        for (String name : targets.getNames()) {
+            initHttpClientMetrics(targets.getHttpClient(name),
+                    Tags.of("bucket", minioConfigurationProperties.getTargets().get(name).getBucket(), "target", name));
         }
     }
 
-    @ConditionalOnBean(MinioClient.class)
-    @Around("execution(* io.minio.MinioClient.putObject(..))")
-    public Object putMeter(ProceedingJoinPoint pjp) throws Throwable {
-        long l = System.currentTimeMillis();
-
-        try {
-            Object proceed = pjp.proceed();
-            putOkTimer.record(System.currentTimeMillis() - l, TimeUnit.MILLISECONDS);
-            return proceed;
-        } catch (Exception e) {
-            putKoTimer.record(System.currentTimeMillis() - l, TimeUnit.MILLISECONDS);
-            throw e;
-        }
+    private void initHttpClientMetrics(OkHttpClient httpClient, Tags tags) {
+        String metricName = minioConfigurationProperties.getMetricName();
+        Dispatcher dispatcher = httpClient.dispatcher();
+
+        Gauge.builder(metricName + ".http.calls.running", dispatcher, Dispatcher::runningCallsCount)
+                .description("Calls running on the Minio HTTP client")
+                .tags(tags)
+                .register(meterRegistry);
+
+        new OkHttpConnectionPoolMetrics(httpClient.connectionPool(), metricName + ".http.pool", tags)
+                .bindTo(meterRegistry);
     }
 
-    @ConditionalOnBean(MinioClient.class)
-    @Around("execution(* io.minio.MinioClient.listBuckets(..))")
-    public Object listBucketMeter(ProceedingJoinPoint pjp) throws Throwable {
-        long l = System.currentTimeMillis();
-
-        try {
-            Object proceed = pjp.proceed();
-            listBucketOkTimer.record(System.currentTimeMillis() - l, TimeUnit.MILLISECONDS);
-            return proceed;
-        } catch (Exception e) {
-            listBucketKoTimer.record(System.currentTimeMillis() - l, TimeUnit.MILLISECONDS);
-            throw e;
+    /**
+     * Publish the state of the circuit breaker of each target, and count its transitions and its rejected calls.
+     */
+    @PostConstruct
+    public void initCircuitBreakerMetrics() {
+        if (circuitBreakers == null) {
+            return;
         }
+        String metricName = minioConfigurationProperties.getMetricName();
+        circuitBreakers.addListener(new MinioCircuitBreaker.Listener() {
+            @Override
+            public void onCreated(MinioCircuitBreaker circuitBreaker) {
+                for (MinioCircuitBreaker.State state : MinioCircuitBreaker.State.values()) {
+                    Gauge.builder(metricName + ".circuit.state", circuitBreaker, breaker -> breaker.getState() == state ? 1 : 0)
+                            .description("1 if the circuit breaker of the bucket is in this state, 0 otherwise")
+                            .tag("bucket", circuitBreaker.getBucket())
+                            .tag("target", circuitBreaker.getTarget())
+                            .tag("state", state.name().toLowerCase())
+                            .register(meterRegistry);
+                }
+            }
+
+            @Override
+            public void onStateTransition(MinioCircuitBreaker circuitBreaker, MinioCircuitBreaker.State from, MinioCircuitBreaker.State to) {
+                Counter.builder(metricName + ".circuit.transitions")
+                        .tag("bucket", circuitBreaker.getBucket())
+                        .tag("target", circuitBreaker.getTarget())
+                        .tag("from", from.name().toLowerCase())
+                        .tag("to", to.name().toLowerCase())
+                        .register(meterRegistry)
+                        .increment();
+            }
+
+            @Override
+            public void onRejected(MinioCircuitBreaker circuitBreaker, String reason) {
+                Counter.builder(metricName + ".circuit.rejected")
+                        .tag("bucket", circuitBreaker.getBucket())
+                        .tag("target", circuitBreaker.getTarget())
+                        .tag("reason", reason)
+                        .register(meterRegistry)
+                        .increment();
+            }
+        });
     }
 
-    @ConditionalOnBean(MinioClient.class)
-    @Around("execution(* io.minio.MinioClient.removeObject(..))")
-    public Object removeMeter(ProceedingJoinPoint pjp) throws Throwable {
-        long l = System.currentTimeMillis();
-
-        try {
-            Object proceed = pjp.proceed();
-            removeOkTimer.record(System.currentTimeMillis() - l, TimeUnit.MILLISECONDS);
-            return proceed;
-        } catch (Exception e) {
-            removeKoTimer.record(System.currentTimeMillis() - l, TimeUnit.MILLISECONDS);
-            throw e;
-        }
+    /**
+     * Publish the queue depth of each notification handler, the time spent by records in the queue, and the dropped
+     * records. The meters of a handler are registered once, when the handler is registered.
+     */
+    @PostConstruct
+    public void initNotificationMetrics() {
+        String metricName = minioConfigurationProperties.getMetricName();
+        Map<MinioNotificationHandler, Timer> lags = new ConcurrentHashMap<>();
+        Map<MinioNotificationHandler, Counter> drops = new ConcurrentHashMap<>();
+        notificationHandlers.addListener(new MinioNotificationHandler.Listener() {
+            @Override
+            public void onRegistered(MinioNotificationHandler handler) {
+                Gauge.builder(metricName + ".notification.queue", handler, MinioNotificationHandler::getQueueSize)
+                        .description("Notification records waiting to be processed by the handler")
+                        .tag("handler", handler.getName())
+                        .register(meterRegistry);
+                lags.put(handler, Timer.builder(metricName + ".notification.lag")
+                        .description("Time spent by notification records in the queue of the handler")
+                        .tag("handler", handler.getName())
+                        .register(meterRegistry));
+                drops.put(handler, Counter.builder(metricName + ".notification.dropped")
+                        .tag("handler", handler.getName())
+                        .register(meterRegistry));
+            }
+
+            @Override
+            public void onProcessed(MinioNotificationHandler handler, long lag) {
+                Timer timer = lags.get(handler);
+                if (timer != null) {
+                    timer.record(lag, TimeUnit.NANOSECONDS);
+                }
+            }
+
+            @Override
+            public void onDropped(MinioNotificationHandler handler) {
+                Counter counter = drops.get(handler);
+                if (counter != null) {
+                    counter.increment();
+                }
+            }
+        });
     }
 }
@@ -0,0 +1,114 @@
+/*
+ * Copyright Jordan LEFEBURE © 2019.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.jlefebure.spring.boot.minio;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Record the duration and the transferred bytes of each operation of {@link MinioService}.
+ * Durations are measured with the monotonic clock of the registry and published as percentile histograms, on the
+ * {@code spring.minio.metric-name} timer tagged by operation, status, bucket and target. Transferred bytes are
+ * published on the {@code spring.minio.metric-name + ".bytes"} distribution summary, tagged by operation, bucket and
+ * target. Hedged requests are counted on {@code spring.minio.metric-name + ".hedges"}. The target is {@code default}
+ * for the bucket of {@code spring.minio.bucket}, or the name of the target in {@code spring.minio.targets}.
+ *
+ * @author Jordan LEFEBURE
+ */
+class MinioMetrics implements MinioInstrumentation {
+
+    private final MeterRegistry meterRegistry;
+    private final String metricName;
+    private final String target;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> summaries = new ConcurrentHashMap<>();
+
+    MinioMetrics(MeterRegistry meterRegistry, String metricName) {
+        this(meterRegistry, metricName, MinioTargets.DEFAULT);
+    }
+
+    private MinioMetrics(MeterRegistry meterRegistry, String metricName, String target) {
+        this.meterRegistry = meterRegistry;
+        this.metricName = metricName;
+        this.target = target;
+    }
+
+    @Override
+    public MinioInstrumentation forTarget(String target) {
+        return new MinioMetrics(meterRegistry, metricName, target);
+    }
+
+    @Override
+    public Context start(String operation, String bucket, String object) {
+        long start = meterRegistry.config().clock().monotonicTime();
+        return new Context() {
+            private long bytes;
+
+            @Override
+            public void bytes(long count) {
+                bytes += count;
+            }
+
+            @Override
+            public void hedge() {
+                Counter.builder(metricName + ".hedges")
+                        .tag("operation", operation)
+                        .tag("bucket", bucket)
+                        .tag("target", target)
+                        .register(meterRegistry)
+                        .increment();
+            }
+
+            @Override
+            public void stop(Throwable error) {
+                long duration = meterRegistry.config().clock().monotonicTime() - start;
+                timer(operation, error == null ? "ok" : "ko", bucket).record(duration, TimeUnit.NANOSECONDS);
+                if (bytes > 0) {
+                    summary(operation, bucket).record(bytes);
+                }
+            }
+        };
+    }
+
+    private Timer timer(String operation, String status, String bucket) {
+        return timers.computeIfAbsent(operation + ':' + status + ':' + bucket, key -> Timer
+                .builder(metricName)
+                .tag("operation", operation)
+                .tag("status", status)
+                .tag("bucket", bucket)
+                .tag("target", target)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    private DistributionSummary summary(String operation, String bucket) {
+        return summaries.computeIfAbsent(operation + ':' + bucket, key -> DistributionSummary
+                .builder(metricName + ".bytes")
+                .baseUnit("bytes")
+                .tag("operation", operation)
+                .tag("bucket", bucket)
+                .tag("target", target)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright Jordan LEFEBURE © 2019.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.jlefebure.spring.boot.minio;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import io.minio.MinioClient;
+import io.minio.ObjectWriteResponse;
+import io.minio.messages.ListBucketResultV2;
+import io.minio.messages.Part;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Thin wrapper around {@link MinioClient} which exposes the low level multipart upload and listing calls of the SDK.
+ * The SDK keeps those methods protected, so this class share the HTTP client and credentials of the given client
+ * and give the service a way to drive multipart uploads and listing pages by itself.
+ *
+ * @author Jordan LEFEBURE
+ */
+class MinioMultipartClient extends MinioClient {
+
+    MinioMultipartClient(MinioClient client) {
+        super(client);
+    }
+
+    /**
+     * Initiate a multipart upload on the given object.
+     *
+     * @param bucket      Bucket name
+     * @param object      Object name
+     * @param contentType MIME type for the object, can be null
+     * @param headers     Additional headers to put on the object, can be null
+     * @return The upload id
+     * @throws Exception if the upload cannot be initiated
+     */
+    String initiate(String bucket, String object, String contentType, Map<String, String> headers) throws Exception {
+        Multimap<String, String> multimap = HashMultimap.create();
+        if (headers != null) {
+            headers.forEach(multimap::put);
+        }
+        if (contentType != null) {
+            multimap.put("Content-Type", contentType);
+        }
+        return createMultipartUpload(bucket, null, object, multimap, null).result().uploadId();
+    }
+
+    /**
+     * Upload the {@code length} first bytes of {@code data} as the part {@code partNumber}.
+     *
+     * @return The part, as expected by {@link #complete(String, String, String, List)}
+     * @throws Exception if the part cannot be uploaded
+     */
+    Part upload(String bucket, String object, String uploadId, int partNumber, byte[] data, int length) throws Exception {
+        String etag = uploadPart(bucket, null, object, data, length, uploadId, partNumber, null, null).etag();
+        return new Part(partNumber, etag);
+    }
+
+    /**
+     * Complete a multipart upload with the given parts, which must be sorted by part number.
+     *
+     * @throws Exception if the upload cannot be completed
+     */
+    ObjectWriteResponse complete(String bucket, String object, String uploadId, List<Part> parts) throws Exception {
+        return completeMultipartUpload(bucket, null, object, uploadId, parts.toArray(new Part[0]), null, null);
+    }
+
+    /**
+     * Abort a multipart upload. Errors are swallowed, as this is only called while another error is being handled.
+     */
+    void abort(String bucket, String object, String uploadId) {
+        try {
+            abortMultipartUpload(bucket, null, object, uploadId, null, null);
+        } catch (Exception e) {
+            // Nothing to do, the original error is more relevant for the caller
+        }
+    }
+
+    /**
+     * Fetch a single page of a listing, with the version 2 of the listing API.
+     *
+     * @param prefix            Prefix of the objects, can be null
+     * @param recursive         If false, objects within folders are grouped as common prefixes
+     * @param startAfter        Object name after which the listing starts, can be null
+     * @param maxKeys           Maximum number of objects of the page
+     * @param continuationToken Token returned by the previous page, null for the first one
+     * @return The page
+     * @throws Exception if the page cannot be fetched
+     */
+    ListBucketResultV2 list(String bucket, String prefix, boolean recursive, String startAfter, int maxKeys,
+                            String continuationToken) throws Exception {
+        return listObjectsV2(bucket, null, recursive ? null : "/", null, startAfter, maxKeys, prefix,
+                continuationToken, false, false, null, null).result();
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright Jordan LEFEBURE © 2019.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.jlefebure.spring.boot.minio;
+
+import com.jlefebure.spring.boot.minio.notification.MinioNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Discover the {@code @MinioNotification} methods of the singleton beans as they are created, instead of creating all
+ * beans of the context to inspect them. The annotated methods are looked up once per class. The handlers are
+ * registered by {@link MinioNotificationConfiguration} when the context is refreshed ; methods of beans created later,
+ * such as lazy beans, are ignored.
+ *
+ * @author Jordan LEFEBURE
+ */
+class MinioNotificationBeanPostProcessor implements BeanPostProcessor, BeanFactoryAware {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MinioNotificationBeanPostProcessor.class);
+
+    private final Map<Class<?>, List<Method>> annotatedMethods = new ConcurrentHashMap<>();
+    private final List<Handler> handlers = new ArrayList<>();
+
+    private ConfigurableListableBeanFactory beanFactory;
+    private boolean started;
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
+        if (beanFactory instanceof ConfigurableListableBeanFactory) {
+            this.beanFactory = (ConfigurableListableBeanFactory) beanFactory;
+        }
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        List<Method> methods = annotatedMethods.computeIfAbsent(AopUtils.getTargetClass(bean),
+                MinioNotificationBeanPostProcessor::findAnnotatedMethods);
+        if (methods.isEmpty()) {
+            return bean;
+        }
+        if (beanFactory != null && beanFactory.containsBeanDefinition(beanName) && !beanFactory.isSingleton(beanName)) {
+            LOGGER.warn("Ignoring Minio handlers of bean {}, which is not a singleton", beanName);
+            return bean;
+        }
+        synchronized (handlers) {
+            if (started) {
+                LOGGER.warn("Ignoring Minio handlers of bean {}, created after the notification listener started", beanName);
+            } else {
+                methods.forEach(method -> handlers.add(new Handler(bean, method)));
+            }
+        }
+        return bean;
+    }
+
+    private static List<Method> findAnnotatedMethods(Class<?> beanClass) {
+        List<Method> methods = new ArrayList<>();
+        for (Method method : beanClass.getDeclaredMethods()) {
+            if (method.isAnnotationPresent(MinioNotification.class)) {
+                methods.add(method);
+            }
+        }
+        return methods.isEmpty() ? Collections.emptyList() : methods;
+    }
+
+    /**
+     * Return the handlers discovered so far. Handlers of beans created afterwards are ignored.
+     *
+     * @return The handler methods, with the bean declaring them
+     */
+    List<Handler> start() {
+        synchronized (handlers) {
+            started = true;
+            return new ArrayList<>(handlers);
+        }
+    }
+
+    static class Handler {
+        private final Object bean;
+        private final Method method;
+
+        private Handler(Object bean, Method method) {
+            this.bean = bean;
+            this.method = method;
+        }
+
+        Object getBean() {
+            return bean;
+        }
+
+        Method getMethod() {
+            return method;
+        }
+    }
+}
@@ -18,11 +18,7 @@ package com.jlefebure.spring.boot.minio;
 
 
 import com.jlefebure.spring.boot.minio.notification.MinioNotification;
-import io.minio.CloseableIterator;
-import io.minio.ListenBucketNotificationArgs;
 import io.minio.MinioClient;
-import io.minio.Result;
-import io.minio.messages.NotificationRecords;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.BeansException;
@@ -31,89 +27,104 @@ import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.ContextRefreshedEvent;
 
-import java.lang.reflect.InvocationTargetException;
+import javax.annotation.PreDestroy;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+/**
+ * Listen to the notifications of the bucket for the {@code @MinioNotification} methods. The methods are discovered by
+ * {@link MinioNotificationBeanPostProcessor} while the beans are created, and the listener is started once the
+ * application context is refreshed.
+ */
 @Configuration
 @AutoConfigureBefore(MinioMetricConfiguration.class)
 @AutoConfigureAfter(MinioConfiguration.class)
-public class MinioNotificationConfiguration implements ApplicationContextAware {
+public class MinioNotificationConfiguration implements ApplicationContextAware, ApplicationListener<ContextRefreshedEvent> {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(MinioNotificationConfiguration.class);
 
     private final MinioClient minioClient;
+    private final MinioService minioService;
     private final MinioConfigurationProperties minioConfigurationProperties;
+    private final MinioNotificationHandlers notificationHandlers;
+    private final MinioNotificationBeanPostProcessor notificationBeanPostProcessor;
 
+    private ApplicationContext applicationContext;
     private List<Thread> handlers = new ArrayList<>();
+    private List<MinioNotificationListener> listeners = new ArrayList<>();
 
     @Autowired
-    public MinioNotificationConfiguration(MinioClient minioClient, MinioConfigurationProperties minioConfigurationProperties) {
+    public MinioNotificationConfiguration(MinioClient minioClient, MinioService minioService,
+                                          MinioConfigurationProperties minioConfigurationProperties,
+                                          MinioNotificationHandlers notificationHandlers,
+                                          MinioNotificationBeanPostProcessor notificationBeanPostProcessor) {
         this.minioClient = minioClient;
+        this.minioService = minioService;
         this.minioConfigurationProperties = minioConfigurationProperties;
+        this.notificationHandlers = notificationHandlers;
+        this.notificationBeanPostProcessor = notificationBeanPostProcessor;
+    }
+
+    /**
+     * Static, so that the post processor is created without this configuration and its dependencies, which are then
+     * post processed as any other bean.
+     */
+    @Bean
+    static MinioNotificationBeanPostProcessor minioNotificationBeanPostProcessor() {
+        return new MinioNotificationBeanPostProcessor();
     }
 
     @Override
     public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
-        for (String beanName : applicationContext.getBeanDefinitionNames()) {
-            Object obj = applicationContext.getBean(beanName);
-
-            Class<?> objClz = obj.getClass();
-            if (org.springframework.aop.support.AopUtils.isAopProxy(obj)) {
-                objClz = org.springframework.aop.support.AopUtils.getTargetClass(obj);
-            }
-
-            for (Method m : objClz.getDeclaredMethods()) {
-                if (m.isAnnotationPresent(MinioNotification.class)) {
-                    //Check if has NotificationInfo parameter only
-                    if (m.getParameterCount() != 1) {
-                        throw new IllegalArgumentException("Minio notification handler should have only one NotificationInfo parameter");
-                    }
-
-                    if (m.getParameterTypes()[0] != NotificationRecords.class) {
-                        throw new IllegalArgumentException("Parameter should be instance of NotificationRecords");
-                    }
-
-                    MinioNotification annotation = m.getAnnotation(MinioNotification.class);
-
-                    //Then registering method handler
-                    Thread handler = new Thread(() -> {
-                        for (; ; ) {
-                            try {
-                                LOGGER.info("Registering Minio handler on {} with notification {}", m.getName(), Arrays.toString(annotation.value()));
-                                ListenBucketNotificationArgs args = ListenBucketNotificationArgs.builder()
-                                        .bucket(minioConfigurationProperties.getBucket())
-                                        .prefix(annotation.prefix())
-                                        .suffix(annotation.suffix())
-                                        .events(annotation.value())
-                                        .build();
-                                try(CloseableIterator<Result<NotificationRecords>> list = minioClient.listenBucketNotification(args)){
-                                    while(list.hasNext()){
-                                        NotificationRecords info = list.next().get();
-                                        try {
-                                            LOGGER.debug("Receive notification for method {}", m.getName());
-                                            m.invoke(obj, info);
-                                        } catch (IllegalAccessException | InvocationTargetException e) {
-                                            LOGGER.error("Error while handling notification for method {} with notification {}", m.getName(), Arrays.toString(annotation.value()));
-                                            LOGGER.error("Exception is", e);
-                                        }
-
-                                    }
-                                };
-                            } catch (Exception e) {
-                                LOGGER.error("Error while registering notification for method " + m.getName() + " with notification " + Arrays.toString(annotation.value()), e);
-                                throw new IllegalStateException("Cannot register handler", e);
-                            }
-                        }
-                    });
-                    handler.start();
-                    handlers.add(handler);
-                }
-            }
+        this.applicationContext = applicationContext;
+    }
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        if (event.getApplicationContext() != applicationContext || !listeners.isEmpty()) {
+            return;
+        }
+
+        List<MinioNotificationRouter.Route> routes = new ArrayList<>();
+        for (MinioNotificationBeanPostProcessor.Handler handler : notificationBeanPostProcessor.start()) {
+            Method m = handler.getMethod();
+            MinioNotification annotation = m.getAnnotation(MinioNotification.class);
+            LOGGER.info("Registering Minio handler on {} with notification {}", m.getName(), Arrays.toString(annotation.value()));
+            routes.add(new MinioNotificationRouter.Route(notificationHandlers.register(handler.getBean(), m),
+                    annotation.value(), annotation.prefix(), annotation.suffix()));
+        }
+
+        if (!routes.isEmpty()) {
+            listen(minioConfigurationProperties.getBucket(), new MinioNotificationRouter(routes));
         }
     }
+
+    /**
+     * Start the listener of a bucket, shared by all handlers. It listens to the union of their events, filtered by
+     * their common prefix and suffix, and only reads the records and routes them to the queues of the handlers.
+     */
+    private void listen(String bucket, MinioNotificationRouter router) {
+        MinioNotificationListener listener = new MinioNotificationListener(minioClient, minioService, bucket, router,
+                minioConfigurationProperties.getNotification());
+        Thread handler = new Thread(listener, "minio-notification-listener-" + bucket);
+        handler.start();
+        listeners.add(listener);
+        handlers.add(handler);
+    }
+
+    /**
+     * Stop the listeners when the application context is closed.
+     */
+    @PreDestroy
+    public void stopListeners() {
+        listeners.forEach(MinioNotificationListener::stop);
+        handlers.forEach(Thread::interrupt);
+    }
 }
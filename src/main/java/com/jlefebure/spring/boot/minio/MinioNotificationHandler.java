@@ -0,0 +1,376 @@
+/*
+ * Copyright Jordan LEFEBURE © 2019.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.jlefebure.spring.boot.minio;
+
+import io.minio.messages.Event;
+import io.minio.messages.NotificationRecords;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.ResolvableType;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Queue of the notifications of a {@code @MinioNotification} method. The thread listening to the bucket only puts the
+ * records in the bounded queue, and the records are processed in order on the notification executor, by batches of at
+ * most {@code spring.minio.notification.batch-size} records. When the queue is full, the listening thread blocks, or
+ * the newest or the oldest records are dropped, depending on {@code spring.minio.notification.overflow}. A blocked
+ * listening thread stalls the notifications of all handlers of the bucket.
+ * <p>
+ * The method takes either the {@link NotificationRecords} received from the bucket, each matching {@link Event}, or
+ * a {@code List<Event>} holding a whole batch. It is called through a lambda generated at registration time, or a
+ * bound method handle if the lambda cannot be generated, instead of reflection.
+ *
+ * @author Jordan LEFEBURE
+ */
+class MinioNotificationHandler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MinioNotificationHandler.class);
+
+    /**
+     * Minimum delay between two warnings about dropped records of a handler, in nanoseconds
+     */
+    private static final long DROPPED_LOG_INTERVAL = TimeUnit.SECONDS.toNanos(10);
+
+    /**
+     * Listener notified of the activity of notification handlers.
+     */
+    interface Listener {
+
+        /**
+         * Called when a handler is registered.
+         *
+         * @param handler The handler
+         */
+        void onRegistered(MinioNotificationHandler handler);
+
+        /**
+         * Called before records are processed.
+         *
+         * @param handler The handler
+         * @param lag     Time spent by the records in the queue, in nanoseconds
+         */
+        void onProcessed(MinioNotificationHandler handler, long lag);
+
+        /**
+         * Called when records are dropped because the queue is full.
+         *
+         * @param handler The handler
+         */
+        void onDropped(MinioNotificationHandler handler);
+    }
+
+    /**
+     * Parameter accepted by a handler method
+     */
+    private enum Kind {
+        RECORDS, EVENT, EVENTS
+    }
+
+    private final String name;
+    private final Kind kind;
+    private final Consumer<Object> invoker;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final Object[] payloads;
+    private final long[] queuedAt;
+    private int head;
+    private int count;
+    private final Object[] batch;
+    private final long[] batchQueuedAt;
+    private final MinioConfigurationProperties.Notification.Overflow overflow;
+    private final int batchSize;
+    private final Executor executor;
+    private final List<Listener> listeners;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicLong droppedSinceLog = new AtomicLong();
+    private final AtomicLong lastDroppedLog = new AtomicLong(System.nanoTime() - DROPPED_LOG_INTERVAL);
+
+    MinioNotificationHandler(Object bean, Method method, MinioConfigurationProperties.Notification properties,
+                             Executor executor, List<Listener> listeners) {
+        this.name = method.getDeclaringClass().getSimpleName() + "." + method.getName();
+        this.kind = kind(method);
+        this.invoker = invoker(bean, AopUtils.selectInvocableMethod(method, bean.getClass()));
+        if (properties.getQueueCapacity() < 1) {
+            throw new IllegalArgumentException("spring.minio.notification.queue-capacity must be positive");
+        }
+        this.payloads = new Object[properties.getQueueCapacity()];
+        this.queuedAt = new long[properties.getQueueCapacity()];
+        this.overflow = properties.getOverflow();
+        this.batchSize = Math.max(1, Math.min(properties.getBatchSize(), properties.getQueueCapacity()));
+        this.batch = new Object[batchSize];
+        this.batchQueuedAt = new long[batchSize];
+        this.executor = executor;
+        this.listeners = listeners;
+    }
+
+    /**
+     * Check the signature of a handler method.
+     *
+     * @throws IllegalArgumentException if the method does not take a single {@link NotificationRecords},
+     *                                  {@link Event} or {@code List<Event>} parameter
+     */
+    private static Kind kind(Method method) {
+        if (method.getParameterCount() != 1) {
+            throw new IllegalArgumentException("Minio notification handler " + method + " should have only one parameter");
+        }
+        Class<?> type = method.getParameterTypes()[0];
+        if (type == NotificationRecords.class) {
+            return Kind.RECORDS;
+        }
+        if (type == Event.class) {
+            return Kind.EVENT;
+        }
+        if (type == List.class && ResolvableType.forMethodParameter(method, 0).getGeneric(0).resolve() == Event.class) {
+            return Kind.EVENTS;
+        }
+        throw new IllegalArgumentException("Parameter of " + method + " should be NotificationRecords, Event or List<Event>");
+    }
+
+    /**
+     * Generate a lambda calling the method on the bean. The lambda is defined next to this class, so it is only
+     * generated for public methods of classes visible from its class loader. Other methods are called through a bound
+     * method handle.
+     */
+    @SuppressWarnings("unchecked")
+    private static Consumer<Object> invoker(Object bean, Method method) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            Class<?> declaringClass = method.getDeclaringClass();
+            if (Modifier.isPublic(method.getModifiers()) && Modifier.isPublic(declaringClass.getModifiers())
+                    && ClassUtils.isVisible(declaringClass, MinioNotificationHandler.class.getClassLoader())) {
+                MethodHandle handle = lookup.unreflect(method);
+                CallSite site = LambdaMetafactory.metafactory(lookup, "accept",
+                        MethodType.methodType(Consumer.class, declaringClass),
+                        MethodType.methodType(void.class, Object.class),
+                        handle,
+                        MethodType.methodType(void.class, method.getParameterTypes()[0]));
+                return (Consumer<Object>) site.getTarget().invoke(bean);
+            }
+            ReflectionUtils.makeAccessible(method);
+            MethodHandle handle = lookup.unreflect(method)
+                    .bindTo(bean)
+                    .asType(MethodType.methodType(void.class, Object.class));
+            return argument -> {
+                try {
+                    handle.invokeExact(argument);
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new IllegalStateException(e);
+                }
+            };
+        } catch (Throwable e) {
+            throw new IllegalArgumentException("Cannot create invoker of Minio notification handler " + method, e);
+        }
+    }
+
+    /**
+     * Queue records received from the bucket, applying the overflow policy if the queue is full.
+     *
+     * @param records The records
+     * @param events  The events of the records matching the handler
+     * @throws InterruptedException if interrupted while waiting for room in the queue
+     */
+    void submit(NotificationRecords records, List<Event> events) throws InterruptedException {
+        long now = System.nanoTime();
+        if (kind == Kind.RECORDS) {
+            enqueue(records, now);
+        } else {
+            for (Event event : events) {
+                enqueue(event, now);
+            }
+        }
+        schedule();
+    }
+
+    private void enqueue(Object payload, long now) throws InterruptedException {
+        boolean dropped = false;
+        lock.lockInterruptibly();
+        try {
+            if (count == payloads.length) {
+                switch (overflow) {
+                    case BLOCK:
+                        while (count == payloads.length) {
+                            notFull.await();
+                        }
+                        break;
+                    case DROP:
+                        dropped = true;
+                        break;
+                    case DROP_OLDEST:
+                        payloads[head] = null;
+                        head = (head + 1) % payloads.length;
+                        count--;
+                        dropped = true;
+                        break;
+                }
+            }
+            if (count < payloads.length) {
+                int tail = (head + count) % payloads.length;
+                payloads[tail] = payload;
+                queuedAt[tail] = now;
+                count++;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (dropped) {
+            dropped();
+        }
+    }
+
+    /**
+     * Count a dropped record. A warning is logged at most once per interval with the records dropped since the
+     * previous one, the listeners are notified of each record.
+     */
+    private void dropped() {
+        droppedSinceLog.incrementAndGet();
+        long now = System.nanoTime();
+        long last = lastDroppedLog.get();
+        if (now - last >= DROPPED_LOG_INTERVAL && lastDroppedLog.compareAndSet(last, now)) {
+            LOGGER.warn("Notification queue of {} is full, {} records dropped since last warning", name,
+                    droppedSinceLog.getAndSet(0));
+        }
+        listeners.forEach(listener -> listener.onDropped(this));
+    }
+
+    /**
+     * Run a drain task if records are queued and none is running, so records are processed one at a time and in order.
+     */
+    private void schedule() {
+        if (getQueueSize() > 0 && scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                scheduled.set(false);
+                LOGGER.debug("Notification executor is stopped, records of {} are not processed", name);
+            }
+        }
+    }
+
+    /**
+     * Process a batch of records. Only one drain runs at a time, so the batch arrays are reused.
+     */
+    private void drain() {
+        try {
+            int size = take();
+            if (size == 0) {
+                return;
+            }
+            if (kind == Kind.EVENTS) {
+                List<Event> events = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    events.add((Event) batch[i]);
+                }
+                processed(batchQueuedAt[0]);
+                invoke(events);
+            } else {
+                for (int i = 0; i < size; i++) {
+                    processed(batchQueuedAt[i]);
+                    invoke(batch[i]);
+                }
+            }
+            Arrays.fill(batch, 0, size, null);
+        } finally {
+            scheduled.set(false);
+            schedule();
+        }
+    }
+
+    /**
+     * Move at most {@code batch-size} records from the queue to the batch arrays.
+     *
+     * @return Number of records moved
+     */
+    private int take() {
+        lock.lock();
+        try {
+            int size = Math.min(count, batchSize);
+            for (int i = 0; i < size; i++) {
+                int index = (head + i) % payloads.length;
+                batch[i] = payloads[index];
+                batchQueuedAt[i] = queuedAt[index];
+                payloads[index] = null;
+            }
+            head = (head + size) % payloads.length;
+            count -= size;
+            if (size > 0) {
+                notFull.signalAll();
+            }
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void processed(long queuedAt) {
+        long lag = System.nanoTime() - queuedAt;
+        // Indexed loop, so no lambda capturing the lag is allocated for each record
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).onProcessed(this, lag);
+        }
+    }
+
+    private void invoke(Object argument) {
+        try {
+            LOGGER.debug("Receive notification for method {}", name);
+            invoker.accept(argument);
+        } catch (Exception e) {
+            LOGGER.error("Error while handling notification for method {}", name, e);
+        }
+    }
+
+    /**
+     * @return Name of the handler, as {@code ClassName.methodName}
+     */
+    String getName() {
+        return name;
+    }
+
+    /**
+     * @return Number of records waiting in the queue
+     */
+    int getQueueSize() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
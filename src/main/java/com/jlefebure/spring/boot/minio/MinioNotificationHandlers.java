@@ -0,0 +1,92 @@
+/*
+ * Copyright Jordan LEFEBURE © 2019.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.jlefebure.spring.boot.minio;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registry of the {@code @MinioNotification} handlers, and executor processing their notifications, configured with
+ * {@code spring.minio.notification.*} properties.
+ *
+ * @author Jordan LEFEBURE
+ */
+@Component
+public class MinioNotificationHandlers {
+
+    private final MinioConfigurationProperties.Notification properties;
+    private final ThreadPoolExecutor executor;
+    private final List<MinioNotificationHandler> handlers = new CopyOnWriteArrayList<>();
+    private final List<MinioNotificationHandler.Listener> listeners = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    public MinioNotificationHandlers(MinioConfigurationProperties minioConfigurationProperties) {
+        this.properties = minioConfigurationProperties.getNotification();
+        // Each handler runs at most one drain task at a time, so the queue holds at most one task per handler
+        this.executor = new ThreadPoolExecutor(
+                properties.getThreads(),
+                properties.getThreads(),
+                properties.getKeepAlive().toMillis(),
+                TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                new CustomizableThreadFactory("minio-notification-")
+        );
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Register a handler method.
+     *
+     * @param bean   Bean declaring the method
+     * @param method Method annotated with {@code @MinioNotification}
+     * @return The handler, to which the listener of the bucket submits the records
+     */
+    MinioNotificationHandler register(Object bean, Method method) {
+        MinioNotificationHandler handler = new MinioNotificationHandler(bean, method, properties, executor, listeners);
+        handlers.add(handler);
+        listeners.forEach(listener -> listener.onRegistered(handler));
+        return handler;
+    }
+
+    /**
+     * Register a listener notified of the activity of all handlers. It is notified at once of the handlers already
+     * registered.
+     *
+     * @param listener The listener
+     */
+    void addListener(MinioNotificationHandler.Listener listener) {
+        listeners.add(listener);
+        handlers.forEach(listener::onRegistered);
+    }
+
+    /**
+     * Stop processing notifications when the application context is closed.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,304 @@
+/*
+ * Copyright Jordan LEFEBURE © 2019.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.jlefebure.spring.boot.minio;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.minio.CloseableIterator;
+import io.minio.ListenBucketNotificationArgs;
+import io.minio.MinioClient;
+import io.minio.Result;
+import io.minio.messages.Event;
+import io.minio.messages.Item;
+import io.minio.messages.NotificationRecords;
+import io.minio.messages.ResponseDate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.file.Paths;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+/**
+ * Supervised listener of the notifications of a bucket, shared by all handlers of the bucket.
+ * <p>
+ * When the connection fails, the listener reconnects after an exponential backoff with jitter, reset once records are
+ * received again. The time and the sequencer of the last received event are tracked. If
+ * {@code spring.minio.notification.reconcile} is set, the objects modified after the last event are listed after a
+ * reconnection, and dispatched as {@code s3:ObjectCreated:Put} events, so the objects created during the outage are
+ * not missed. Removals cannot be reconciled. Reconciled events have the {@code eventSource} {@value #RECONCILE_SOURCE}.
+ * <p>
+ * The reconciliation runs on its own thread, so the live notifications are still consumed meanwhile. Objects are
+ * listed through {@link MinioService}, with its retries and circuit breaker, and a failed listing resumes after the
+ * last listed object. A reconnection during a reconciliation lists the bucket again once the current one is done.
+ *
+ * @author Jordan LEFEBURE
+ */
+class MinioNotificationListener implements Runnable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MinioNotificationListener.class);
+
+    static final String RECONCILE_SOURCE = "minio:reconcile";
+
+    /**
+     * Minimum delay before reconnecting, in milliseconds, so a zero backoff does not reconnect in a tight loop
+     */
+    private static final long MIN_BACKOFF = 100;
+
+    /**
+     * Number of objects per page of the reconciliation listing
+     */
+    private static final int RECONCILE_PAGE_SIZE = 1000;
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final MinioClient minioClient;
+    private final MinioService minioService;
+    private final String bucket;
+    private final MinioNotificationRouter router;
+    private final long initialBackoff;
+    private final long maxBackoff;
+    private final boolean reconcile;
+
+    private volatile boolean running = true;
+    private volatile CloseableIterator<Result<NotificationRecords>> current;
+    private volatile ZonedDateTime lastEventTime;
+    private volatile String lastSequencer;
+    private volatile Thread reconciler;
+
+    /**
+     * Start of the oldest gap waiting to be reconciled, guarded by this listener
+     */
+    private ZonedDateTime reconcileSince;
+    private boolean reconciling;
+
+    MinioNotificationListener(MinioClient minioClient, MinioService minioService, String bucket,
+                              MinioNotificationRouter router, MinioConfigurationProperties.Notification properties) {
+        this.minioClient = minioClient;
+        this.minioService = minioService;
+        this.bucket = bucket;
+        this.router = router;
+        this.initialBackoff = Math.max(MIN_BACKOFF, properties.getReconnectInitialBackoff().toMillis());
+        this.maxBackoff = Math.max(initialBackoff, properties.getReconnectMaxBackoff().toMillis());
+        this.reconcile = properties.isReconcile();
+    }
+
+    @Override
+    public void run() {
+        long backoff = initialBackoff;
+        // Before the first event, nothing older than the first connection can have been missed
+        ZonedDateTime checkpoint = ZonedDateTime.now(ZoneOffset.UTC);
+        boolean reconnected = false;
+        while (running) {
+            try {
+                LOGGER.info("Listening to notifications {} of bucket {}", Arrays.toString(router.getEvents()), bucket);
+                ListenBucketNotificationArgs args = ListenBucketNotificationArgs.builder()
+                        .bucket(bucket)
+                        .prefix(router.getPrefix())
+                        .suffix(router.getSuffix())
+                        .events(router.getEvents())
+                        .build();
+                try (CloseableIterator<Result<NotificationRecords>> records = minioClient.listenBucketNotification(args)) {
+                    current = records;
+                    if (reconnected && reconcile) {
+                        // Events received from now on are not missed, only the gap before has to be listed
+                        reconcile(lastEventTime != null ? lastEventTime : checkpoint);
+                    }
+                    while (running && records.hasNext()) {
+                        NotificationRecords notificationRecords = records.next().get();
+                        track(notificationRecords);
+                        router.dispatch(notificationRecords);
+                        backoff = initialBackoff;
+                    }
+                }
+                if (running) {
+                    LOGGER.warn("Notification stream of bucket {} has been closed, reconnecting in {} ms", bucket, backoff);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                if (running) {
+                    LOGGER.warn("Error while listening to notifications of bucket {}, reconnecting in {} ms. Last event was at {}, sequencer {}",
+                            bucket, backoff, lastEventTime, lastSequencer, e);
+                }
+            } finally {
+                current = null;
+            }
+            if (!running) {
+                return;
+            }
+            try {
+                Thread.sleep(ThreadLocalRandom.current().nextLong(backoff / 2, backoff + 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            backoff = Math.min(maxBackoff, backoff * 2);
+            reconnected = true;
+        }
+    }
+
+    /**
+     * Stop listening, closing the current connection.
+     */
+    void stop() {
+        running = false;
+        Thread thread = reconciler;
+        if (thread != null) {
+            thread.interrupt();
+        }
+        CloseableIterator<Result<NotificationRecords>> records = current;
+        if (records != null) {
+            try {
+                records.close();
+            } catch (IOException e) {
+                LOGGER.debug("Error while closing notification stream of bucket {}", bucket, e);
+            }
+        }
+    }
+
+    private void track(NotificationRecords records) {
+        for (Event event : records.events()) {
+            ZonedDateTime eventTime = event.eventTime();
+            if (eventTime != null && (lastEventTime == null || eventTime.isAfter(lastEventTime))) {
+                lastEventTime = eventTime;
+                lastSequencer = event.sequencer();
+            }
+        }
+    }
+
+    /**
+     * Reconcile the objects modified after the checkpoint on the reconciliation thread, started if none is running.
+     */
+    private void reconcile(ZonedDateTime checkpoint) {
+        synchronized (this) {
+            if (reconcileSince == null || checkpoint.isBefore(reconcileSince)) {
+                reconcileSince = checkpoint;
+            }
+            if (reconciling) {
+                return;
+            }
+            reconciling = true;
+        }
+        Thread thread = new Thread(this::reconcilePending, "minio-notification-reconcile-" + bucket);
+        reconciler = thread;
+        thread.start();
+    }
+
+    /**
+     * Dispatch the objects modified after each pending checkpoint as creation events. A failed listing is resumed
+     * after the last listed object, after a backoff.
+     */
+    private void reconcilePending() {
+        long backoff = initialBackoff;
+        ZonedDateTime since = null;
+        String startAfter = null;
+        int count = 0;
+        while (running) {
+            if (since == null) {
+                synchronized (this) {
+                    since = reconcileSince;
+                    reconcileSince = null;
+                    if (since == null) {
+                        reconciling = false;
+                        reconciler = null;
+                        return;
+                    }
+                }
+                startAfter = null;
+                count = 0;
+                LOGGER.info("Reconciling objects of bucket {} modified since {}", bucket, since);
+            }
+            try (Stream<Item> items = minioService.stream(Paths.get(router.getPrefix()), true, startAfter, RECONCILE_PAGE_SIZE)) {
+                Iterator<Item> iterator = items.iterator();
+                while (running && iterator.hasNext()) {
+                    Item item = iterator.next();
+                    if (!item.isDir() && item.objectName().startsWith(router.getPrefix())
+                            && item.lastModified() != null && item.lastModified().isAfter(since)) {
+                        router.dispatch(createdEvent(item));
+                        count++;
+                    }
+                    startAfter = item.objectName();
+                }
+                LOGGER.info("Reconciled {} objects of bucket {}", count, bucket);
+                since = null;
+                backoff = initialBackoff;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                LOGGER.warn("Error while reconciling objects of bucket {}, resuming after {} in {} ms", bucket, startAfter, backoff, e);
+                try {
+                    Thread.sleep(ThreadLocalRandom.current().nextLong(backoff / 2, backoff + 1));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                backoff = Math.min(maxBackoff, backoff * 2);
+            }
+        }
+    }
+
+    /**
+     * Build a creation event for an object, as it would be received from Minio.
+     */
+    private NotificationRecords createdEvent(Item item) throws UnsupportedEncodingException {
+        Map<String, Object> object = new HashMap<>();
+        object.put("key", URLEncoder.encode(item.objectName(), "UTF-8"));
+        object.put("size", item.size());
+        object.put("eTag", item.etag());
+        Map<String, Object> s3 = new HashMap<>();
+        s3.put("bucket", Collections.singletonMap("name", bucket));
+        s3.put("object", object);
+        Map<String, Object> event = new HashMap<>();
+        event.put("eventSource", RECONCILE_SOURCE);
+        event.put("eventName", "s3:ObjectCreated:Put");
+        event.put("eventTime", item.lastModified().format(ResponseDate.MINIO_RESPONSE_DATE_FORMAT));
+        event.put("s3", s3);
+        return OBJECT_MAPPER.convertValue(Collections.singletonMap("Records", Collections.singletonList(event)),
+                NotificationRecords.class);
+    }
+
+    /**
+     * @return Time of the last event received, or null if none has been received
+     */
+    ZonedDateTime getLastEventTime() {
+        return lastEventTime;
+    }
+
+    /**
+     * @return Sequencer of the last event received, or null if none has been received
+     */
+    String getLastSequencer() {
+        return lastSequencer;
+    }
+}
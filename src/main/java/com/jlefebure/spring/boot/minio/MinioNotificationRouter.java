@@ -0,0 +1,223 @@
+/*
+ * Copyright Jordan LEFEBURE © 2019.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.jlefebure.spring.boot.minio;
+
+import io.minio.messages.Event;
+import io.minio.messages.EventType;
+import io.minio.messages.NotificationRecords;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Route the notifications of a bucket to the handlers whose events, prefix and suffix match.
+ * <p>
+ * Routes are compiled once : prefixes are stored in a trie of the object names, suffixes in a trie of the reversed
+ * object names, and event patterns are expanded to the matching event types. Matching an event walks both tries along
+ * the object name, so the cost does not depend on the number of handlers.
+ *
+ * @author Jordan LEFEBURE
+ */
+class MinioNotificationRouter {
+
+    /**
+     * A handler, and the notifications it listens to
+     */
+    static class Route {
+        private final MinioNotificationHandler handler;
+        private final String[] events;
+        private final String prefix;
+        private final String suffix;
+
+        Route(MinioNotificationHandler handler, String[] events, String prefix, String suffix) {
+            this.handler = handler;
+            this.events = events;
+            this.prefix = prefix;
+            this.suffix = suffix;
+        }
+    }
+
+    private final List<MinioNotificationHandler> handlers = new ArrayList<>();
+    private final Node prefixes = new Node();
+    private final Node suffixes = new Node();
+    private final Map<EventType, BitSet> eventTypes = new EnumMap<>(EventType.class);
+    private final Set<String> events = new LinkedHashSet<>();
+    private final String prefix;
+    private final String suffix;
+
+    MinioNotificationRouter(List<Route> routes) {
+        String commonPrefix = null;
+        String commonSuffix = null;
+        for (int index = 0; index < routes.size(); index++) {
+            Route route = routes.get(index);
+            handlers.add(route.handler);
+            prefixes.insert(route.prefix, false).handlers.set(index);
+            suffixes.insert(route.suffix, true).handlers.set(index);
+            for (String event : route.events) {
+                events.add(event);
+                for (EventType eventType : EventType.values()) {
+                    if (matches(event, eventType.toString())) {
+                        eventTypes.computeIfAbsent(eventType, type -> new BitSet()).set(index);
+                    }
+                }
+            }
+            commonPrefix = commonPrefix == null ? route.prefix : commonPrefix(commonPrefix, route.prefix);
+            commonSuffix = commonSuffix == null ? route.suffix : commonSuffix(commonSuffix, route.suffix);
+        }
+        this.prefix = commonPrefix == null ? "" : commonPrefix;
+        this.suffix = commonSuffix == null ? "" : commonSuffix;
+    }
+
+    /**
+     * @return Union of the events of all routes, to listen on the bucket
+     */
+    String[] getEvents() {
+        return events.toArray(new String[0]);
+    }
+
+    /**
+     * @return Longest prefix shared by all routes, to filter the notifications on the server
+     */
+    String getPrefix() {
+        return prefix;
+    }
+
+    /**
+     * @return Longest suffix shared by all routes, to filter the notifications on the server
+     */
+    String getSuffix() {
+        return suffix;
+    }
+
+    /**
+     * Submit records to the handlers matching at least one of their events, with the matching events.
+     *
+     * @param records Records received from the bucket
+     * @throws InterruptedException if interrupted while waiting for room in the queue of a handler
+     */
+    void dispatch(NotificationRecords records) throws InterruptedException {
+        List<Event> events = records.events();
+        if (events.size() == 1) {
+            // Minio sends one event per record, the events of the record are the matching ones
+            BitSet matched = match(events.get(0));
+            for (int index = matched.nextSetBit(0); index >= 0; index = matched.nextSetBit(index + 1)) {
+                handlers.get(index).submit(records, events);
+            }
+            return;
+        }
+        Map<Integer, List<Event>> matchedEvents = new TreeMap<>();
+        for (Event event : events) {
+            BitSet matched = match(event);
+            for (int index = matched.nextSetBit(0); index >= 0; index = matched.nextSetBit(index + 1)) {
+                matchedEvents.computeIfAbsent(index, key -> new ArrayList<>()).add(event);
+            }
+        }
+        for (Map.Entry<Integer, List<Event>> entry : matchedEvents.entrySet()) {
+            handlers.get(entry.getKey()).submit(records, entry.getValue());
+        }
+    }
+
+    private BitSet match(Event event) {
+        BitSet byType = eventTypes.get(event.eventType());
+        if (byType == null) {
+            return new BitSet();
+        }
+        String objectName = decode(event.objectName());
+        BitSet matched = prefixes.collect(objectName, false);
+        matched.and(suffixes.collect(objectName, true));
+        matched.and(byType);
+        return matched;
+    }
+
+    private static String decode(String objectName) {
+        try {
+            // Object keys of events are URL encoded
+            return URLDecoder.decode(objectName, "UTF-8");
+        } catch (UnsupportedEncodingException | IllegalArgumentException e) {
+            return objectName;
+        }
+    }
+
+    /**
+     * Match an event type against a pattern of the Minio documentation, like {@code s3:ObjectCreated:*}.
+     */
+    private static boolean matches(String pattern, String eventType) {
+        if (pattern.endsWith("*")) {
+            return eventType.startsWith(pattern.substring(0, pattern.length() - 1)) && !eventType.endsWith("*");
+        }
+        return pattern.equals(eventType);
+    }
+
+    private static String commonPrefix(String a, String b) {
+        int length = 0;
+        while (length < a.length() && length < b.length() && a.charAt(length) == b.charAt(length)) {
+            length++;
+        }
+        return a.substring(0, length);
+    }
+
+    private static String commonSuffix(String a, String b) {
+        int length = 0;
+        while (length < a.length() && length < b.length()
+                && a.charAt(a.length() - 1 - length) == b.charAt(b.length() - 1 - length)) {
+            length++;
+        }
+        return a.substring(a.length() - length);
+    }
+
+    /**
+     * Node of a trie of characters, holding the routes whose prefix or suffix ends at this node
+     */
+    private static class Node {
+        private final Map<Character, Node> children = new HashMap<>();
+        private final BitSet handlers = new BitSet();
+
+        private Node insert(String key, boolean reversed) {
+            Node node = this;
+            for (int i = 0; i < key.length(); i++) {
+                char c = key.charAt(reversed ? key.length() - 1 - i : i);
+                node = node.children.computeIfAbsent(c, character -> new Node());
+            }
+            return node;
+        }
+
+        /**
+         * Collect the routes of all nodes along the key, i.e. the routes whose prefix (or suffix) is part of the key.
+         */
+        private BitSet collect(String key, boolean reversed) {
+            BitSet collected = (BitSet) handlers.clone();
+            Node node = this;
+            for (int i = 0; i < key.length(); i++) {
+                node = node.children.get(key.charAt(reversed ? key.length() - 1 - i : i));
+                if (node == null) {
+                    break;
+                }
+                collected.or(node.handlers);
+            }
+            return collected;
+        }
+    }
+}
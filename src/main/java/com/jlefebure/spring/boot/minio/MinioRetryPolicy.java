@@ -0,0 +1,175 @@
+/*
+ * Copyright Jordan LEFEBURE © 2019.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.jlefebure.spring.boot.minio;
+
+import io.minio.errors.ErrorResponseException;
+import io.minio.errors.ServerException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.nio.file.FileSystemException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Retry idempotent requests failing with a transient error, with an exponential backoff and full jitter.
+ * Retries are taken from a budget shared by all requests : each request deposits a fraction of a retry, and a
+ * minimum number of retries per second is always allowed. Once the budget is empty, errors are thrown immediately,
+ * so retries cannot amplify an overload of the server.
+ * <p>
+ * A single policy is shared by the services of the default bucket and of all targets, so the budget bounds the
+ * retries of the whole application.
+ *
+ * @author Jordan LEFEBURE
+ */
+@Component
+public class MinioRetryPolicy {
+
+    /**
+     * Error codes returned by S3 for transient failures
+     */
+    private static final Set<String> RETRYABLE_CODES = new HashSet<>(Arrays.asList(
+            "InternalError", "ServiceUnavailable", "SlowDown", "RequestTimeout", "OperationAborted",
+            "XMinioServerNotInitialized"));
+
+    /**
+     * Budget is counted in thousandths of retry
+     */
+    private static final long RETRY_COST = 1000;
+
+    private final boolean enabled;
+    private final int maxAttempts;
+    private final long initialBackoff;
+    private final long maxBackoff;
+    private final double multiplier;
+    private final long deposit;
+    private final long refillPerSecond;
+    private final long maxBalance;
+    private final AtomicLong balance;
+    private final AtomicLong lastRefill;
+
+    @Autowired
+    public MinioRetryPolicy(MinioConfigurationProperties minioConfigurationProperties) {
+        this(minioConfigurationProperties.getRetry());
+    }
+
+    MinioRetryPolicy(MinioConfigurationProperties.Retry properties) {
+        this.enabled = properties.isEnabled() && properties.getMaxAttempts() > 1;
+        this.maxAttempts = properties.getMaxAttempts();
+        this.initialBackoff = properties.getInitialBackoff().toNanos();
+        this.maxBackoff = properties.getMaxBackoff().toNanos();
+        this.multiplier = properties.getMultiplier();
+        this.deposit = (long) (properties.getBudgetRatio() * RETRY_COST);
+        this.refillPerSecond = properties.getMinRetriesPerSecond() * RETRY_COST;
+        this.maxBalance = Math.max(refillPerSecond, RETRY_COST) * 10;
+        this.balance = new AtomicLong(refillPerSecond);
+        this.lastRefill = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Run a request, and run it again while it fails with a transient error, the budget allows it and the maximum
+     * number of attempts is not reached. The request must be idempotent.
+     *
+     * @param context Context of the operation, notified of each retry
+     * @param request The request
+     * @return The result of the request
+     * @throws Exception the error of the last attempt
+     */
+    <T> T call(MinioInstrumentation.Context context, Callable<T> request) throws Exception {
+        if (!enabled) {
+            return request.call();
+        }
+        deposit(deposit);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return request.call();
+            } catch (Exception e) {
+                if (attempt >= maxAttempts || !isRetryable(e) || !withdraw()) {
+                    throw e;
+                }
+                TimeUnit.NANOSECONDS.sleep(backoff(attempt));
+                context.retry();
+            }
+        }
+    }
+
+    /**
+     * Full jitter : a random delay between 0 and the exponential backoff of the attempt.
+     */
+    private long backoff(int attempt) {
+        double backoff = Math.min(maxBackoff, initialBackoff * Math.pow(multiplier, attempt - 1));
+        return (long) (ThreadLocalRandom.current().nextDouble() * backoff);
+    }
+
+    /**
+     * Tell whether an error is transient : a server error, a throttling, or a network error like a reset connection
+     * or a timeout. Errors of the local file system are not retried.
+     */
+    static boolean isRetryable(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ErrorResponseException) {
+                ErrorResponseException exception = (ErrorResponseException) cause;
+                return RETRYABLE_CODES.contains(exception.errorResponse().code())
+                        || (exception.response() != null && exception.response().code() >= 500);
+            }
+            if (cause instanceof ServerException) {
+                return true;
+            }
+            if (cause instanceof FileSystemException || cause instanceof FileNotFoundException) {
+                return false;
+            }
+            if (cause instanceof InterruptedIOException) {
+                return cause instanceof SocketTimeoutException;
+            }
+            if (cause instanceof IOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void deposit(long amount) {
+        balance.getAndUpdate(current -> Math.min(maxBalance, current + amount));
+    }
+
+    private boolean withdraw() {
+        long now = System.nanoTime();
+        long last = lastRefill.get();
+        long elapsed = now - last;
+        if (elapsed >= TimeUnit.MILLISECONDS.toNanos(10) && lastRefill.compareAndSet(last, now)) {
+            deposit(refillPerSecond * elapsed / TimeUnit.SECONDS.toNanos(1));
+        }
+        while (true) {
+            long current = balance.get();
+            if (current < RETRY_COST) {
+                return false;
+            }
+            if (balance.compareAndSet(current, current - RETRY_COST)) {
+                return true;
+            }
+        }
+    }
+}
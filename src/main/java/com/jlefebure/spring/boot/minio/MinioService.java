@@ -18,24 +18,67 @@ package com.jlefebure.spring.boot.minio;
 
 
 import io.minio.*;
+import io.minio.messages.DeleteError;
+import io.minio.messages.DeleteObject;
 import io.minio.messages.Item;
+import io.minio.messages.ListBucketResultV2;
+import io.minio.messages.Part;
+import io.minio.messages.Prefix;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 
 /**
  * Service class to interact with Minio bucket. This class is register as a bean and use the properties defined in {@link MinioConfigurationProperties}.
  * All methods return an {@link com.jlefebure.spring.boot.minio.MinioException} which wrap the Minio SDK exception.
- * The bucket name is provided with the one defined in the configuration properties.
+ * The bucket name is provided with the one defined in the configuration properties, or with the one of the target for
+ * the services of {@link MinioTargets}.
  *
  * @author Jordan LEFEBURE
  *
@@ -46,13 +89,121 @@ import java.util.stream.StreamSupport;
 @Service
 public class MinioService {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(MinioService.class);
+
+    /**
+     * Maximum number of parts of a multipart upload allowed by the S3 API.
+     */
+    private static final int MAX_PARTS = 10000;
+
+    /**
+     * Minimum size of a part of a multipart upload allowed by the S3 API, except for the last one.
+     */
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+
+    /**
+     * Default number of objects fetched per page when listing objects.
+     */
+    private static final int DEFAULT_MAX_KEYS = 1000;
+
+    /**
+     * Maximum number of objects of a multi-object delete request allowed by the S3 API.
+     */
+    private static final int MAX_DELETE_OBJECTS = 1000;
+
     private final MinioClient minioClient;
     private final MinioConfigurationProperties configurationProperties;
+    private final String bucket;
+    private final MinioMultipartClient multipartClient;
+    private final MinioBufferPool bufferPool;
+    private final ThreadPoolExecutor executor;
+    private final boolean sharedExecutor;
+    private final MinioMetadataCache metadataCache;
+    private final MinioContentCache contentCache;
+    private final MinioInstrumentation instrumentation;
+    private final MinioRetryPolicy retryPolicy;
+    private final MinioCircuitBreaker circuitBreaker;
+    private final MinioHedging hedging;
 
-    @Autowired
     public MinioService(MinioClient minioClient, MinioConfigurationProperties configurationProperties) {
+        this(minioClient, configurationProperties, null, null, null, new MinioRetryPolicy(configurationProperties.getRetry()),
+                MinioInstrumentation.NOOP);
+    }
+
+    @Autowired
+    public MinioService(MinioClient minioClient, MinioConfigurationProperties configurationProperties,
+                        @Nullable MinioMetadataCache metadataCache, @Nullable MinioContentCache contentCache,
+                        @Nullable MinioCircuitBreakers circuitBreakers, MinioRetryPolicy retryPolicy,
+                        ObjectProvider<MinioInstrumentation> instrumentations) {
+        this(minioClient, configurationProperties, metadataCache, contentCache, circuitBreakers, retryPolicy,
+                MinioInstrumentation.of(instrumentations.orderedStream().collect(Collectors.toList())));
+    }
+
+    private MinioService(MinioClient minioClient, MinioConfigurationProperties configurationProperties,
+                         MinioMetadataCache metadataCache, MinioContentCache contentCache,
+                         MinioCircuitBreakers circuitBreakers, MinioRetryPolicy retryPolicy, MinioInstrumentation instrumentation) {
+        this(minioClient, configurationProperties, MinioTargets.DEFAULT, configurationProperties.getBucket(), metadataCache,
+                contentCache, circuitBreakers, retryPolicy, instrumentation, null, null);
+    }
+
+    /**
+     * Service on the bucket of a target, used by {@link MinioTargets}. The buffers of the uploads, the task executor
+     * and the retry budget are shared with the service of the default bucket.
+     */
+    MinioService(MinioService service, MinioClient minioClient, String target, String bucket,
+                 MinioCircuitBreakers circuitBreakers, MinioInstrumentation instrumentation) {
+        this(minioClient, service.configurationProperties, target, bucket, null, null, circuitBreakers, service.retryPolicy,
+                instrumentation, service.bufferPool, service.executor);
+    }
+
+    MinioService(MinioClient minioClient, MinioConfigurationProperties configurationProperties, String target, String bucket,
+                 MinioMetadataCache metadataCache, MinioContentCache contentCache,
+                 MinioCircuitBreakers circuitBreakers, MinioInstrumentation instrumentation) {
+        this(minioClient, configurationProperties, target, bucket, metadataCache, contentCache, circuitBreakers,
+                new MinioRetryPolicy(configurationProperties.getRetry()), instrumentation, null, null);
+    }
+
+    private MinioService(MinioClient minioClient, MinioConfigurationProperties configurationProperties, String target, String bucket,
+                         MinioMetadataCache metadataCache, MinioContentCache contentCache,
+                         MinioCircuitBreakers circuitBreakers, MinioRetryPolicy retryPolicy, MinioInstrumentation instrumentation,
+                         MinioBufferPool bufferPool, ThreadPoolExecutor executor) {
         this.minioClient = minioClient;
         this.configurationProperties = configurationProperties;
+        this.bucket = bucket;
+        this.metadataCache = metadataCache;
+        this.contentCache = contentCache;
+        this.instrumentation = instrumentation;
+        this.circuitBreaker = circuitBreakers != null ? circuitBreakers.get(target, bucket) : null;
+        this.multipartClient = minioClient instanceof MinioMultipartClient
+                ? (MinioMultipartClient) minioClient : new MinioMultipartClient(minioClient);
+        this.retryPolicy = retryPolicy;
+        this.hedging = configurationProperties.getHedge().isEnabled() ? new MinioHedging(configurationProperties.getHedge()) : null;
+        this.sharedExecutor = executor != null;
+
+        if (bufferPool != null) {
+            this.bufferPool = bufferPool;
+        } else {
+            long partSize = configurationProperties.getUpload().getPartSize().toBytes();
+            if (partSize < MIN_PART_SIZE || partSize > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("spring.minio.upload.part-size must be between 5MB and 2GB");
+            }
+            this.bufferPool = new MinioBufferPool((int) partSize, configurationProperties.getUpload().getMaxBufferedParts());
+        }
+
+        if (executor != null) {
+            this.executor = executor;
+        } else {
+            MinioConfigurationProperties.TaskExecutor executorProperties = configurationProperties.getExecutor();
+            this.executor = new ThreadPoolExecutor(
+                    executorProperties.getThreads(),
+                    executorProperties.getThreads(),
+                    executorProperties.getKeepAlive().toMillis(),
+                    TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(),
+                    new CustomizableThreadFactory("minio-task-")
+            );
+            this.executor.allowCoreThreadTimeOut(true);
+        }
     }
 
     /**
@@ -62,12 +213,11 @@ public class MinioService {
      */
     public List<Item> list() {
         ListObjectsArgs args = ListObjectsArgs.builder()
-                .bucket(configurationProperties.getBucket())
+                .bucket(bucket)
                 .prefix("")
                 .recursive(false)
                 .build();
-        Iterable<Result<Item>> myObjects = minioClient.listObjects(args);
-        return getItems(myObjects);
+        return getItems(args);
     }
 
     /**
@@ -77,10 +227,9 @@ public class MinioService {
      */
     public List<Item> fullList() {
         ListObjectsArgs args = ListObjectsArgs.builder()
-                .bucket(configurationProperties.getBucket())
+                .bucket(bucket)
                 .build();
-        Iterable<Result<Item>> myObjects = minioClient.listObjects(args);
-        return getItems(myObjects);
+        return getItems(args);
     }
 
     /**
@@ -92,12 +241,11 @@ public class MinioService {
      */
     public List<Item> list(Path path) {
         ListObjectsArgs args = ListObjectsArgs.builder()
-                .bucket(configurationProperties.getBucket())
+                .bucket(bucket)
                 .prefix(path.toString())
                 .recursive(false)
                 .build();
-        Iterable<Result<Item>> myObjects = minioClient.listObjects(args);
-        return getItems(myObjects);
+        return getItems(args);
     }
 
     /**
@@ -110,30 +258,174 @@ public class MinioService {
      */
     public List<Item> getFullList(Path path) {
         ListObjectsArgs args = ListObjectsArgs.builder()
-                .bucket(configurationProperties.getBucket())
+                .bucket(bucket)
                 .prefix(path.toString())
                 .build();
-        Iterable<Result<Item>> myObjects = minioClient.listObjects(args);
-        return getItems(myObjects);
+        return getItems(args);
     }
 
     /**
-     * Utility method which map results to items and return a list
+     * Utility method which list objects, map results to items and return a list
      *
-     * @param myObjects Iterable of results
+     * @param args Arguments of the listing
      * @return List of items
      */
-    private List<Item> getItems(Iterable<Result<Item>> myObjects) {
-        return StreamSupport
-            .stream(myObjects.spliterator(), true)
-            .map(itemResult -> {
-                try {
-                    return itemResult.get();
-                } catch (Exception e) {
-                    throw new MinioFetchException("Error while parsing list of objects", e);
-                } 
-            })
-            .collect(Collectors.toList());
+    private List<Item> getItems(ListObjectsArgs args) {
+        List<Item> items = new ArrayList<>();
+        new Listing(args).forEachRemaining(items::add);
+        return items;
+    }
+
+    /**
+     * Stream all objects with the prefix given in parameter for the bucket.
+     * Objects are fetched page by page while the stream is consumed, so the listing can be stopped at any time
+     * without fetching the whole bucket.
+     *
+     * @param path      Prefix of seeked list of object
+     * @param recursive If true, objects within folders are returned too
+     * @return Lazy stream of items. A {@link MinioFetchException} is thrown while consuming the stream if a page cannot be fetched.
+     */
+    public Stream<Item> stream(Path path, boolean recursive) {
+        return stream(path, recursive, null, DEFAULT_MAX_KEYS);
+    }
+
+    /**
+     * Stream objects with the prefix given in parameter for the bucket, starting after the given object name.
+     * Objects are fetched page by page while the stream is consumed, so the listing can be stopped at any time
+     * without fetching the whole bucket.
+     *
+     * @param path       Prefix of seeked list of object
+     * @param recursive  If true, objects within folders are returned too
+     * @param startAfter Object name after which the listing starts, can be null
+     * @param maxKeys    Maximum number of objects fetched per page, up to 1000
+     * @return Lazy stream of items. A {@link MinioFetchException} is thrown while consuming the stream if a page cannot be fetched.
+     * The listing operation ends when the stream is closed, consumed or fails.
+     */
+    public Stream<Item> stream(Path path, boolean recursive, String startAfter, int maxKeys) {
+        Listing listing = listing(path, recursive, startAfter, maxKeys);
+        return toStream(listing).onClose(listing::close);
+    }
+
+    /**
+     * Iterate over objects with the prefix given in parameter for the bucket, starting after the given object name.
+     * Objects are fetched page by page while iterating.
+     *
+     * @param path       Prefix of seeked list of object
+     * @param recursive  If true, objects within folders are returned too
+     * @param startAfter Object name after which the listing starts, can be null
+     * @param maxKeys    Maximum number of objects fetched per page, up to 1000
+     * @return Lazy iterator of items. A {@link MinioFetchException} is thrown while iterating if a page cannot be fetched.
+     * The listing operation ends when the iterator is exhausted or fails.
+     */
+    public Iterator<Item> iterator(Path path, boolean recursive, String startAfter, int maxKeys) {
+        return listing(path, recursive, startAfter, maxKeys);
+    }
+
+    private Listing listing(Path path, boolean recursive, String startAfter, int maxKeys) {
+        ListObjectsArgs.Builder builder = ListObjectsArgs.builder()
+                .bucket(bucket)
+                .prefix(path.toString())
+                .recursive(recursive)
+                .maxKeys(maxKeys);
+        if (startAfter != null) {
+            builder.startAfter(startAfter);
+        }
+        return new Listing(builder.build());
+    }
+
+    /**
+     * Lazy listing of objects, instrumented as a single {@code listObjects} operation which starts with the first
+     * page. Pages are requested one by one with their continuation token : each page request is retried and goes
+     * through the circuit breaker of the bucket, and a failed page is requested again with the same token, so no
+     * object is returned twice.
+     */
+    private final class Listing implements Iterator<Item> {
+        private final ListObjectsArgs args;
+        private MinioInstrumentation.Context context;
+        private Iterator<Item> page = Collections.emptyIterator();
+        private String continuationToken;
+        private boolean truncated = true;
+        private Item next;
+        private boolean done;
+
+        private Listing(ListObjectsArgs args) {
+            this.args = args;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !done) {
+                fetch();
+            }
+            return next != null;
+        }
+
+        @Override
+        public Item next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Item item = next;
+            next = null;
+            return item;
+        }
+
+        private void fetch() {
+            if (context == null) {
+                context = instrumentation.start("listObjects", bucket, args.prefix());
+            }
+            try {
+                while (!page.hasNext() && truncated) {
+                    MinioInstrumentation.Context context = this.context;
+                    ListBucketResultV2 result = context.wrap(() -> request(context, () -> multipartClient.list(
+                            bucket, args.prefix(), args.recursive(), args.startAfter(), args.maxKeys(), continuationToken))).call();
+                    List<Item> items = new ArrayList<>(result.contents());
+                    for (Prefix prefix : result.commonPrefixes()) {
+                        items.add(prefix.toItem());
+                    }
+                    page = items.iterator();
+                    continuationToken = result.nextContinuationToken();
+                    truncated = result.isTruncated() && continuationToken != null;
+                }
+            } catch (RuntimeException e) {
+                close(e);
+                throw e;
+            } catch (Exception e) {
+                close(e);
+                throw new MinioFetchException("Error while fetching files in Minio", e);
+            }
+            if (page.hasNext()) {
+                next = page.next();
+            } else {
+                close(null);
+            }
+        }
+
+        private void close() {
+            close(null);
+        }
+
+        private void close(Throwable error) {
+            if (!done) {
+                done = true;
+                next = null;
+                // An iterator dropped before its first page never started the operation
+                if (context != null) {
+                    context.stop(error);
+                }
+            }
+        }
+    }
+
+    /**
+     * Utility method which wrap items in a sequential stream. The underlying iterator is lazy and cannot be split,
+     * so the stream is never parallel.
+     *
+     * @param items Iterator of items
+     * @return Stream of items
+     */
+    private static Stream<Item> toStream(Iterator<Item> items) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(items, Spliterator.ORDERED | Spliterator.NONNULL), false);
     }
 
     /**
@@ -145,11 +437,30 @@ public class MinioService {
      */
     public InputStream get(Path path) throws com.jlefebure.spring.boot.minio.MinioException {
         try {
-            GetObjectArgs args = GetObjectArgs.builder()
-                    .bucket(configurationProperties.getBucket())
-                    .object(path.toString())
-                    .build();
-            return minioClient.getObject(args);
+            MinioInstrumentation.Context context = instrumentation.start("getObject", bucket, path.toString());
+            InputStream stream;
+            try {
+                // Only the opening of the stream is guarded, the caller may keep it open for a long time
+                stream = context.wrap(() -> request(context, () -> {
+                    if (contentCache != null) {
+                        return contentCache.get(path.toString(), etag -> hedged("getObject", context, () -> minioClient.getObject(GetObjectArgs.builder()
+                                .bucket(bucket)
+                                .object(path.toString())
+                                .notMatchETag(etag)
+                                .build()), MinioService::closeQuietly));
+                    }
+                    GetObjectArgs args = GetObjectArgs.builder()
+                            .bucket(bucket)
+                            .object(path.toString())
+                            .build();
+                    return hedged("getObject", context, () -> minioClient.getObject(args), MinioService::closeQuietly);
+                })).call();
+            } catch (Exception e) {
+                context.stop(e);
+                throw e;
+            }
+            // The operation ends when the caller closes the stream
+            return instrumentation == MinioInstrumentation.NOOP ? stream : new MinioInstrumentedInputStream(stream, context);
         } catch (Exception e) {
             throw new com.jlefebure.spring.boot.minio.MinioException("Error while fetching files in Minio", e);
         }
@@ -164,36 +475,109 @@ public class MinioService {
      */
     public StatObjectResponse getMetadata(Path path) throws com.jlefebure.spring.boot.minio.MinioException {
         try {
-            StatObjectArgs args = StatObjectArgs.builder()
-                    .bucket(configurationProperties.getBucket())
-                    .object(path.toString())
-                    .build();
-            return minioClient.statObject(args);
+            return statObject(path.toString());
         } catch (Exception e) {
             throw new com.jlefebure.spring.boot.minio.MinioException("Error while fetching files in Minio", e);
         }
     }
 
+    /**
+     * Utility method which fetch the metadata of an object, through the metadata cache if it is enabled
+     *
+     * @param object Object name
+     * @return Metadata of the object
+     * @throws Exception if an error occur while fetching object metadatas
+     */
+    private StatObjectResponse statObject(String object) throws Exception {
+        return instrumented("statObject", object, context -> {
+            StatObjectArgs args = StatObjectArgs.builder()
+                    .bucket(bucket)
+                    .object(object)
+                    .build();
+            // Metadata holds no resource, the response of a losing request is simply dropped
+            Callable<StatObjectResponse> loader = () -> request(context,
+                    () -> hedged("statObject", context, () -> minioClient.statObject(args), response -> { }));
+            return metadataCache != null ? metadataCache.get(object, loader) : loader.call();
+        });
+    }
+
+    /**
+     * Utility method which remove an object from the caches after it has been written or removed
+     *
+     * @param object Object name
+     */
+    private void invalidate(String object) {
+        if (metadataCache != null) {
+            metadataCache.invalidate(object);
+        }
+        if (contentCache != null) {
+            contentCache.invalidate(object);
+        }
+    }
+
     /**
      * Get metadata for multiples objects from Minio
      *
      * @param paths Paths of all objects with prefix. Objects names must be included.
      * @return A map where all paths are keys and metadatas are values
+     * @throws MinioFetchException if the metadata of an object cannot be fetched
      */
     public Map<Path, StatObjectResponse> getMetadata(Iterable<Path> paths) {
-        return StreamSupport.stream(paths.spliterator(), false)
-            .map(path -> {
-                try {
-                    StatObjectArgs args = StatObjectArgs.builder()
-                            .bucket(configurationProperties.getBucket())
-                            .object(path.toString())
-                            .build();
-                    return new HashMap.SimpleEntry<>(path, minioClient.statObject(args));
-                } catch (Exception e) {
-                    throw new MinioFetchException("Error while parsing list of objects", e);
-                }
-            })
-            .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        MinioBatchResult<StatObjectResponse> batch = getMetadataBatch(paths);
+        if (!batch.isSuccessful()) {
+            throw new MinioFetchException("Error while parsing list of objects", batch.getErrors().values().iterator().next());
+        }
+        return new HashMap<>(batch.getResults());
+    }
+
+    /**
+     * Get metadata for multiples objects from Minio, concurrently.
+     * At most {@code spring.minio.stat.max-in-flight} requests are running at the same time. The failure of an object
+     * does not abort the batch.
+     *
+     * @param paths Paths of all objects with prefix. Objects names must be included.
+     * @return Metadata of all succeeded objects, and errors of all failed ones
+     */
+    public MinioBatchResult<StatObjectResponse> getMetadataBatch(Iterable<Path> paths) {
+        return batch(paths, configurationProperties.getStat().getMaxInFlight(), path -> statObject(path.toString()));
+    }
+
+    /**
+     * Utility method which run an operation for each path on the task executor, with at most {@code maxInFlight}
+     * operations at the same time, and collect all results and errors.
+     */
+    private <T> MinioBatchResult<T> batch(Iterable<Path> paths, int maxInFlight, PathOperation<T> operation) {
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        Map<Path, T> results = new ConcurrentHashMap<>();
+        Map<Path, Exception> errors = new ConcurrentHashMap<>();
+        List<CompletableFuture<T>> futures = new ArrayList<>();
+        try {
+            for (Path path : paths) {
+                inFlight.acquire();
+                futures.add(async(() -> operation.apply(path)).whenComplete((result, error) -> {
+                    inFlight.release();
+                    if (error != null) {
+                        errors.put(path, unwrap(error));
+                    } else {
+                        results.put(path, result);
+                    }
+                }));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MinioFetchException("Interrupted while fetching objects", e);
+        } finally {
+            futures.forEach(future -> future.handle((result, error) -> null).join());
+        }
+        return new MinioBatchResult<>(results, errors);
+    }
+
+    /**
+     * Operation on a single object of a batch.
+     */
+    @FunctionalInterface
+    private interface PathOperation<T> {
+        T apply(Path path) throws Exception;
     }
 
     /**
@@ -205,17 +589,118 @@ public class MinioService {
      */
     public void getAndSave(Path source, String fileName) throws com.jlefebure.spring.boot.minio.MinioException {
         try {
-            DownloadObjectArgs args = DownloadObjectArgs.builder()
-                    .bucket(configurationProperties.getBucket())
-                    .object(source.toString())
-                    .filename(fileName)
-                    .build();
-            minioClient.downloadObject(args);
+            instrumented("downloadObject", source.toString(), context -> {
+                if (configurationProperties.getDownload().isSegmented()) {
+                    StatObjectResponse stat = request(context, () -> minioClient.statObject(StatObjectArgs.builder()
+                            .bucket(bucket)
+                            .object(source.toString())
+                            .build()));
+                    if (stat.size() > configurationProperties.getDownload().getSegmentSize().toBytes()) {
+                        segmentedDownload(source.toString(), stat, Paths.get(fileName), context);
+                        context.bytes(stat.size());
+                        return null;
+                    }
+                }
+                DownloadObjectArgs args = DownloadObjectArgs.builder()
+                        .bucket(bucket)
+                        .object(source.toString())
+                        .filename(fileName)
+                        .build();
+                transfer(context, () -> {
+                    minioClient.downloadObject(args);
+                    return null;
+                });
+                context.bytes(Files.size(Paths.get(fileName)));
+                return null;
+            });
         } catch (Exception e) {
             throw new com.jlefebure.spring.boot.minio.MinioException("Error while fetching files in Minio", e);
         }
     }
 
+    /**
+     * Download an object with concurrent ranged requests. Each segment is written at its position in a pre-sized
+     * temporary file, which is moved to the target once all segments are downloaded and the size is checked.
+     * All requests are conditioned on the ETag of the stat, so the segments cannot come from different versions of the object.
+     */
+    private void segmentedDownload(String object, StatObjectResponse stat, Path target,
+                                   MinioInstrumentation.Context context) throws Exception {
+        if (Files.exists(target)) {
+            throw new IllegalArgumentException("Destination file " + target + " already exists");
+        }
+        long size = stat.size();
+        long segmentSize = configurationProperties.getDownload().getSegmentSize().toBytes();
+        Path temp = target.resolveSibling(target.getFileName() + "." + stat.etag() + ".part.minio");
+        context.parts((int) ((size + segmentSize - 1) / segmentSize));
+
+        Semaphore inFlight = new Semaphore(configurationProperties.getDownload().getMaxInFlightSegments());
+        AtomicBoolean failed = new AtomicBoolean();
+        AtomicLong downloaded = new AtomicLong();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        try (RandomAccessFile file = new RandomAccessFile(temp.toFile(), "rw")) {
+            file.setLength(size);
+            FileChannel channel = file.getChannel();
+            try {
+                for (long offset = 0; offset < size; offset += segmentSize) {
+                    inFlight.acquire();
+                    if (failed.get()) {
+                        inFlight.release();
+                        break;
+                    }
+                    long position = offset;
+                    long length = Math.min(segmentSize, size - offset);
+                    futures.add(async(() -> {
+                        GetObjectArgs args = GetObjectArgs.builder()
+                                .bucket(bucket)
+                                .object(object)
+                                .offset(position)
+                                .length(length)
+                                .matchETag(stat.etag())
+                                .build();
+                        try {
+                            // A failed segment is downloaded again from its start
+                            downloaded.addAndGet(request(context, () -> {
+                                try (InputStream stream = minioClient.getObject(args);
+                                     ReadableByteChannel source = Channels.newChannel(stream)) {
+                                    long written = 0;
+                                    while (written < length) {
+                                        long count = channel.transferFrom(source, position + written, length - written);
+                                        if (count <= 0) {
+                                            throw new EOFException("Segment at offset " + position + " of " + object + " is truncated");
+                                        }
+                                        written += count;
+                                    }
+                                    return written;
+                                }
+                            }));
+                            return null;
+                        } catch (Exception e) {
+                            failed.set(true);
+                            throw e;
+                        } finally {
+                            inFlight.release();
+                        }
+                    }));
+                }
+                for (CompletableFuture<Void> future : futures) {
+                    await(future);
+                }
+            } catch (Exception e) {
+                futures.forEach(future -> future.handle((result, error) -> null).join());
+                throw e;
+            }
+
+            if (downloaded.get() != size) {
+                throw new IllegalStateException("Downloaded " + downloaded.get() + " bytes for " + object + " instead of " + size);
+            }
+            channel.force(false);
+        } catch (Exception e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+    }
+
     /**
      * Upload a file to Minio
      *
@@ -226,17 +711,7 @@ public class MinioService {
      */
     public void upload(Path source, InputStream file, Map<String, String> headers) throws
         com.jlefebure.spring.boot.minio.MinioException {
-        try {
-            PutObjectArgs args = PutObjectArgs.builder()
-                    .bucket(configurationProperties.getBucket())
-                    .object(source.toString())
-                    .stream(file, file.available(), -1)
-                    .headers(headers)
-                    .build();
-            minioClient.putObject(args);
-        } catch (Exception e) {
-            throw new com.jlefebure.spring.boot.minio.MinioException("Error while fetching files in Minio", e);
-        }
+        putObject(source, file, null, headers);
     }
 
     /**
@@ -248,16 +723,7 @@ public class MinioService {
      */
     public void upload(Path source, InputStream file) throws
         com.jlefebure.spring.boot.minio.MinioException {
-        try {
-            PutObjectArgs args = PutObjectArgs.builder()
-                    .bucket(configurationProperties.getBucket())
-                    .object(source.toString())
-                    .stream(file, file.available(), -1)
-                    .build();
-            minioClient.putObject(args);
-        } catch (Exception e) {
-            throw new com.jlefebure.spring.boot.minio.MinioException("Error while fetching files in Minio", e);
-        }
+        putObject(source, file, null, null);
     }
 
     /**
@@ -271,19 +737,7 @@ public class MinioService {
      */
     public void upload(Path source, InputStream file, String contentType, Map<String, String> headers) throws
         com.jlefebure.spring.boot.minio.MinioException {
-        try {
-            PutObjectArgs args = PutObjectArgs.builder()
-                    .bucket(configurationProperties.getBucket())
-                    .object(source.toString())
-                    .stream(file, file.available(), -1)
-                    .headers(headers)
-                    .contentType(contentType)
-                    .build();
-
-            minioClient.putObject(args);
-        } catch (Exception e) {
-            throw new com.jlefebure.spring.boot.minio.MinioException("Error while fetching files in Minio", e);
-        }
+        putObject(source, file, contentType, headers);
     }
 
     /**
@@ -295,24 +749,144 @@ public class MinioService {
      * @throws com.jlefebure.spring.boot.minio.MinioException if an error occur while uploading object
      */
     public void upload(Path source, InputStream file, String contentType) throws
+        com.jlefebure.spring.boot.minio.MinioException {
+        putObject(source, file, contentType, null);
+    }
+
+    /**
+     * Upload a stream of unknown length to Minio, part by part, whatever the value of {@code spring.minio.upload.streaming}
+     *
+     * @param source      Path with prefix to the object. Object name must be included.
+     * @param file        File as an inputstream. The stream is read until its end, and is not closed.
+     * @param contentType MIME type for the object, can be null
+     * @param headers     Additional headers to put on the file, can be null
+     * @throws com.jlefebure.spring.boot.minio.MinioException if an error occur while uploading object
+     */
+    public void uploadStream(Path source, InputStream file, String contentType, Map<String, String> headers) throws
         com.jlefebure.spring.boot.minio.MinioException {
         try {
-            PutObjectArgs args = PutObjectArgs.builder()
-                    .bucket(configurationProperties.getBucket())
-                    .object(source.toString())
-                    .stream(file, file.available(), -1)
-                    .contentType(contentType)
-                    .build();
+            instrumented("putObject", source.toString(), context -> {
+                context.bytes(streamingUpload(source.toString(), file, contentType, headers, context));
+                return null;
+            });
+        } catch (Exception e) {
+            throw new com.jlefebure.spring.boot.minio.MinioException("Error while fetching files in Minio", e);
+        } finally {
+            invalidate(source.toString());
+        }
+    }
 
-            minioClient.putObject(args);
+    /**
+     * Utility method which upload a stream, either in a single request or part by part if streaming is enabled
+     *
+     * @param source      Path with prefix to the object. Object name must be included.
+     * @param file        File as an inputstream
+     * @param contentType MIME type for the object, can be null
+     * @param headers     Additional headers to put on the file, can be null
+     * @throws com.jlefebure.spring.boot.minio.MinioException if an error occur while uploading object
+     */
+    private void putObject(Path source, InputStream file, String contentType, Map<String, String> headers) throws
+        com.jlefebure.spring.boot.minio.MinioException {
+        try {
+            instrumented("putObject", source.toString(), context -> {
+                if (configurationProperties.getUpload().isStreaming()) {
+                    context.bytes(streamingUpload(source.toString(), file, contentType, headers, context));
+                    return null;
+                }
+                int size = file.available();
+                PutObjectArgs.Builder builder = PutObjectArgs.builder()
+                        .bucket(bucket)
+                        .object(source.toString())
+                        .stream(file, size, -1);
+                if (headers != null) {
+                    builder.headers(headers);
+                }
+                if (contentType != null) {
+                    builder.contentType(contentType);
+                }
+                if (file.markSupported()) {
+                    // The stream can be read again from its start, so the upload can be retried
+                    file.mark(size);
+                    AtomicBoolean first = new AtomicBoolean(true);
+                    transfer(context, () -> {
+                        if (!first.getAndSet(false)) {
+                            file.reset();
+                        }
+                        return minioClient.putObject(builder.build());
+                    });
+                } else {
+                    guarded(() -> minioClient.putObject(builder.build()), false);
+                }
+                context.bytes(size);
+                return null;
+            });
         } catch (Exception e) {
             throw new com.jlefebure.spring.boot.minio.MinioException("Error while fetching files in Minio", e);
+        } finally {
+            invalidate(source.toString());
+        }
+    }
+
+    /**
+     * Upload a stream of unknown length part by part. Each part is read in a buffer of the pool, so the memory used by
+     * all uploads is bounded by {@code spring.minio.upload.max-buffered-parts} parts.
+     * Streams smaller than a part are sent in a single request.
+     *
+     * @return The number of bytes uploaded
+     */
+    private long streamingUpload(String object, InputStream file, String contentType, Map<String, String> headers,
+                                 MinioInstrumentation.Context context) throws Exception {
+        byte[] buffer = bufferPool.acquire();
+        try {
+            int length = MinioBufferPool.readFully(file, buffer);
+            if (length < buffer.length) {
+                int size = length;
+                request(context, () -> {
+                    PutObjectArgs.Builder builder = PutObjectArgs.builder()
+                            .bucket(bucket)
+                            .object(object)
+                            .stream(new ByteArrayInputStream(buffer, 0, size), size, -1);
+                    if (headers != null) {
+                        builder.headers(headers);
+                    }
+                    if (contentType != null) {
+                        builder.contentType(contentType);
+                    }
+                    return minioClient.putObject(builder.build());
+                });
+                return length;
+            }
+
+            long total = 0;
+            String uploadId = guarded(() -> multipartClient.initiate(bucket, object, contentType, headers), true);
+            try {
+                List<Part> parts = new ArrayList<>();
+                while (length > 0) {
+                    if (parts.size() == MAX_PARTS) {
+                        throw new IllegalStateException("Object is larger than " + MAX_PARTS + " parts, increase spring.minio.upload.part-size");
+                    }
+                    int partNumber = parts.size() + 1;
+                    int partLength = length;
+                    parts.add(request(context,
+                            () -> multipartClient.upload(bucket, object, uploadId, partNumber, buffer, partLength)));
+                    total += length;
+                    length = MinioBufferPool.readFully(file, buffer);
+                }
+                context.parts(parts.size());
+                guarded(() -> multipartClient.complete(bucket, object, uploadId, parts), true);
+                return total;
+            } catch (Exception e) {
+                multipartClient.abort(bucket, object, uploadId);
+                throw e;
+            }
+        } finally {
+            bufferPool.release(buffer);
         }
     }
 
     /**
      * Upload a file to Minio
-     * upload file bigger than Xmx size
+     * upload file bigger than Xmx size. Files larger than a part are split in parts which are uploaded concurrently.
      * @param source      Path with prefix to the object. Object name must be included.
      * @param file        File as an Filename
      * @throws com.jlefebure.spring.boot.minio.MinioException if an error occur while uploading object
@@ -320,14 +894,257 @@ public class MinioService {
     public void upload(Path source, File file) throws
             com.jlefebure.spring.boot.minio.MinioException {
         try {
-            UploadObjectArgs args = UploadObjectArgs.builder()
-                    .bucket(configurationProperties.getBucket())
-                    .object(source.toString())
-                    .filename(file.getAbsolutePath())
-                    .build();
-            minioClient.uploadObject(args);
+            instrumented("putObject", source.toString(), context -> {
+                long size = file.length();
+                if (size > bufferPool.getBufferSize()) {
+                    parallelUpload(source.toString(), file.toPath(), context);
+                } else {
+                    UploadObjectArgs args = UploadObjectArgs.builder()
+                            .bucket(bucket)
+                            .object(source.toString())
+                            .filename(file.getAbsolutePath())
+                            .build();
+                    request(context, () -> minioClient.uploadObject(args));
+                }
+                context.bytes(size);
+                return null;
+            });
         } catch (Exception e) {
             throw new com.jlefebure.spring.boot.minio.MinioException("Error while fetching files in Minio", e);
+        } finally {
+            invalidate(source.toString());
+        }
+    }
+
+    /**
+     * Upload a local file as a multipart upload. Parts are read with positional reads on the file channel, and at most
+     * {@code spring.minio.upload.max-in-flight-parts} parts are uploaded at the same time on the task executor.
+     */
+    private void parallelUpload(String object, Path file, MinioInstrumentation.Context context) throws Exception {
+        String contentType = Files.probeContentType(file);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int partSize = bufferPool.getBufferSize();
+            long partCount = (size + partSize - 1) / partSize;
+            if (partCount > MAX_PARTS) {
+                throw new IllegalStateException("Object is larger than " + MAX_PARTS + " parts, increase spring.minio.upload.part-size");
+            }
+            context.parts((int) partCount);
+
+            String uploadId = guarded(() -> multipartClient.initiate(bucket, object, contentType != null ? contentType : "application/octet-stream", null), true);
+            Semaphore inFlight = new Semaphore(configurationProperties.getUpload().getMaxInFlightParts());
+            AtomicBoolean failed = new AtomicBoolean();
+            List<CompletableFuture<Part>> futures = new ArrayList<>();
+            try {
+                for (int i = 0; i < partCount; i++) {
+                    inFlight.acquire();
+                    if (failed.get()) {
+                        inFlight.release();
+                        break;
+                    }
+                    int partNumber = i + 1;
+                    long position = (long) i * partSize;
+                    int length = (int) Math.min(partSize, size - position);
+                    byte[] buffer;
+                    try {
+                        buffer = bufferPool.acquire();
+                    } catch (InterruptedException e) {
+                        inFlight.release();
+                        throw e;
+                    }
+                    futures.add(async(() -> {
+                        try {
+                            ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, length);
+                            while (byteBuffer.hasRemaining()) {
+                                if (channel.read(byteBuffer, position + byteBuffer.position()) < 0) {
+                                    throw new EOFException("File " + file + " has been truncated during upload");
+                                }
+                            }
+                            return request(context,
+                                    () -> multipartClient.upload(bucket, object, uploadId, partNumber, buffer, length));
+                        } catch (Exception e) {
+                            failed.set(true);
+                            throw e;
+                        } finally {
+                            bufferPool.release(buffer);
+                            inFlight.release();
+                        }
+                    }));
+                }
+
+                List<Part> parts = new ArrayList<>(futures.size());
+                for (CompletableFuture<Part> future : futures) {
+                    parts.add(await(future));
+                }
+                guarded(() -> multipartClient.complete(bucket, object, uploadId, parts), true);
+            } catch (Exception e) {
+                // Let running parts finish before aborting, so no part is uploaded after the abort
+                futures.forEach(future -> future.handle((part, error) -> null).join());
+                multipartClient.abort(bucket, object, uploadId);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Utility method which run an operation between the start and the stop of the instrumentation
+     *
+     * @param operation Name of the operation
+     * @param object    Object name, can be null
+     * @param task      The operation
+     * @return The result of the operation
+     * @throws Exception the error of the operation
+     */
+    private <T> T instrumented(String operation, String object, InstrumentedOperation<T> task) throws Exception {
+        MinioInstrumentation.Context context = instrumentation.start(operation, bucket, object);
+        try {
+            T result = context.wrap(() -> task.run(context)).call();
+            context.stop(null);
+            return result;
+        } catch (Exception e) {
+            context.stop(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Utility method which send a request with retries, each attempt going through the circuit breaker of the bucket
+     *
+     * @param context Context of the operation
+     * @param call    The request
+     * @return The result of the request
+     * @throws Exception the error of the last attempt
+     */
+    private <T> T request(MinioInstrumentation.Context context, Callable<T> call) throws Exception {
+        return retryPolicy.call(context, () -> guarded(call, true));
+    }
+
+    /**
+     * Utility method which send a request transferring a whole object with retries. Each attempt goes
+     * through the circuit breaker of the bucket, but is never counted as slow, since its duration depends on the size
+     * of the data.
+     *
+     * @param context Context of the operation
+     * @param call    The request
+     * @return The result of the request
+     * @throws Exception the error of the last attempt
+     */
+    private <T> T transfer(MinioInstrumentation.Context context, Callable<T> call) throws Exception {
+        return retryPolicy.call(context, () -> guarded(call, false));
+    }
+
+    /**
+     * Utility method which run a single request through the circuit breaker and the bulkhead of the bucket, if circuit
+     * breakers are enabled. Operations made of several requests, like multipart uploads or segmented downloads, go
+     * through the circuit breaker once per request.
+     *
+     * @param call  The request
+     * @param timed Whether the duration of the request is compared to the slow call duration
+     * @return The result of the request
+     * @throws Exception the error of the request, or {@link MinioCallNotPermittedException} if the request is rejected
+     */
+    private <T> T guarded(Callable<T> call, boolean timed) throws Exception {
+        if (circuitBreaker == null) {
+            return call.call();
+        }
+        long start = circuitBreaker.acquire();
+        try {
+            T result = call.call();
+            circuitBreaker.onComplete(start, null, timed);
+            return result;
+        } catch (Exception e) {
+            circuitBreaker.onComplete(start, e, timed);
+            throw e;
+        }
+    }
+
+    /**
+     * Utility method which run a read request with hedging, if it is enabled
+     *
+     * @param operation Operation of the request, whose latencies give the hedging delay
+     * @param context Context of the operation
+     * @param request The request
+     * @param discard Release the response of a losing request
+     * @return The first response
+     * @throws Exception the error of the request
+     */
+    private <T> T hedged(String operation, MinioInstrumentation.Context context, Callable<T> request, Consumer<T> discard) throws Exception {
+        return hedging != null ? hedging.call(operation, context, request, discard) : request.call();
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            LOGGER.debug("Error while closing a discarded response", e);
+        }
+    }
+
+    /**
+     * Operation reporting to an instrumentation context.
+     */
+    @FunctionalInterface
+    private interface InstrumentedOperation<T> {
+        T run(MinioInstrumentation.Context context) throws Exception;
+    }
+
+    /**
+     * Wrap a task run on another thread, so the operations it starts are attached to the operation or the trace of
+     * the calling thread.
+     */
+    <T> Callable<T> propagate(Callable<T> task) {
+        return instrumentation.wrap(task);
+    }
+
+    /**
+     * Run a task on the task executor, in the operation of the calling thread. Exceptions thrown by the task complete
+     * the future exceptionally.
+     */
+    private <T> CompletableFuture<T> async(Callable<T> task) {
+        Callable<T> wrapped = propagate(task);
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return wrapped.call();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Wait for a future returned by {@link #async(Callable)} and rethrow the exception of the task, if any.
+     */
+    private static <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    /**
+     * Get the exception thrown by a task from the error which completed its future.
+     */
+    private static Exception unwrap(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof Exception) {
+            return (Exception) cause;
+        }
+        return new CompletionException(cause);
+    }
+
+    /**
+     * Stop the task executor when the application context is closed. The executor shared by the services of the
+     * targets is stopped by the service of the default bucket.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (!sharedExecutor) {
+            executor.shutdown();
+        }
+        if (hedging != null) {
+            hedging.shutdown();
         }
     }
 
@@ -340,13 +1157,128 @@ public class MinioService {
      */
     public void remove(Path source) throws com.jlefebure.spring.boot.minio.MinioException {
         try {
-            RemoveObjectArgs args = RemoveObjectArgs.builder()
-                    .bucket(configurationProperties.getBucket())
-                    .object(source.toString())
-                    .build();
-            minioClient.removeObject(args);
+            instrumented("removeObject", source.toString(), context -> {
+                RemoveObjectArgs args = RemoveObjectArgs.builder()
+                        .bucket(bucket)
+                        .object(source.toString())
+                        .build();
+                request(context, () -> {
+                    minioClient.removeObject(args);
+                    return null;
+                });
+                return null;
+            });
         } catch (Exception e) {
             throw new MinioException("Error while fetching files in Minio", e);
+        } finally {
+            invalidate(source.toString());
+        }
+    }
+
+    /**
+     * Remove multiple files from Minio, with multi-object delete requests.
+     * Objects are grouped in batches of {@code spring.minio.remove.batch-size} objects, and at most
+     * {@code spring.minio.remove.max-in-flight-batches} batches are removed at the same time.
+     *
+     * @param sources Paths with prefix to the objects. Objects names must be included.
+     * @return A map where paths of objects which cannot be removed are keys and errors are values. Empty if all objects are removed.
+     */
+    public Map<Path, Exception> remove(Iterable<Path> sources) {
+        return removeBatches(sources.iterator());
+    }
+
+    /**
+     * Remove all files with the prefix given in parameter from Minio, even those which are in a folder.
+     * Objects are listed lazily and removed batch by batch while listing, as in {@link #remove(Iterable)}.
+     *
+     * @param prefix Prefix of the objects to remove
+     * @return A map where paths of objects which cannot be removed are keys and errors are values. Empty if all objects are removed.
+     * @throws com.jlefebure.spring.boot.minio.MinioException if an error occur while listing objects
+     */
+    public Map<Path, Exception> removePrefix(Path prefix) throws com.jlefebure.spring.boot.minio.MinioException {
+        // The listing is an operation of its own, and each batch a removeObjects operation
+        Iterator<Item> items = iterator(prefix, true, null, DEFAULT_MAX_KEYS);
+        try {
+            return removeBatches(new Iterator<Path>() {
+                @Override
+                public boolean hasNext() {
+                    return items.hasNext();
+                }
+
+                @Override
+                public Path next() {
+                    return Paths.get(items.next().objectName());
+                }
+            });
+        } catch (MinioFetchException e) {
+            throw new MinioException("Error while fetching files in Minio", e);
+        }
+    }
+
+    /**
+     * Utility method which remove objects batch by batch on the task executor.
+     */
+    private Map<Path, Exception> removeBatches(Iterator<Path> sources) {
+        int batchSize = Math.min(configurationProperties.getRemove().getBatchSize(), MAX_DELETE_OBJECTS);
+        Semaphore inFlight = new Semaphore(configurationProperties.getRemove().getMaxInFlightBatches());
+        Map<Path, Exception> errors = new ConcurrentHashMap<>();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        try {
+            while (sources.hasNext()) {
+                List<Path> batch = new ArrayList<>(batchSize);
+                while (sources.hasNext() && batch.size() < batchSize) {
+                    batch.add(sources.next());
+                }
+                inFlight.acquire();
+                futures.add(async(() -> removeBatch(batch, errors)).whenComplete((result, error) -> {
+                    inFlight.release();
+                    if (error != null) {
+                        Exception exception = unwrap(error);
+                        batch.forEach(path -> errors.putIfAbsent(path, exception));
+                    }
+                }));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MinioFetchException("Interrupted while removing objects", e);
+        } finally {
+            futures.forEach(future -> future.handle((result, error) -> null).join());
+        }
+        return new HashMap<>(errors);
+    }
+
+    /**
+     * Remove a batch of objects in a single multi-object delete request, and collect the error of each object which
+     * cannot be removed.
+     */
+    private Void removeBatch(List<Path> batch, Map<Path, Exception> errors) throws Exception {
+        Map<String, Path> paths = new HashMap<>();
+        List<DeleteObject> objects = new ArrayList<>(batch.size());
+        for (Path path : batch) {
+            paths.put(path.toString(), path);
+            objects.add(new DeleteObject(path.toString()));
+        }
+        RemoveObjectsArgs args = RemoveObjectsArgs.builder()
+                .bucket(bucket)
+                .objects(objects)
+                .build();
+        try {
+            return instrumented("removeObjects", null, context -> {
+                context.parts(objects.size());
+                errors.putAll(request(context, () -> {
+                    Map<Path, Exception> batchErrors = new HashMap<>();
+                    // Results are lazy, the request is only sent while iterating
+                    for (Result<DeleteError> result : minioClient.removeObjects(args)) {
+                        DeleteError error = result.get();
+                        Path path = paths.getOrDefault(error.objectName(), Paths.get(error.objectName()));
+                        batchErrors.put(path, new MinioException("Error while removing " + error.objectName() + " in Minio: " + error.code() + " " + error.message(), null));
+                    }
+                    return batchErrors;
+                }));
+                return null;
+            });
+        } finally {
+            paths.keySet().forEach(this::invalidate);
         }
     }
 
@@ -0,0 +1,167 @@
+/*
+ * Copyright Jordan LEFEBURE © 2019.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.jlefebure.spring.boot.minio;
+
+import io.minio.MinioClient;
+import okhttp3.OkHttpClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Clients and services of the targets defined with {@code spring.minio.targets.<name>.*}. Each target has its own
+ * Minio client, and its own HTTP client with its connection pool and dispatcher, tuned with
+ * {@code spring.minio.targets.<name>.http.*}. Other settings, like timeouts, retries or uploads, are shared with the
+ * default bucket.
+ * <p>
+ * Buckets of the targets are checked when this registry is created, unless the bucket check is disabled, or deferred
+ * to {@link MinioBucketVerifier}.
+ * The metadata and content caches only apply to the default bucket. The buffers of the uploads and the task executor
+ * are those of the {@link MinioService} of the default bucket.
+ *
+ * @author Jordan LEFEBURE
+ */
+@Component
+public class MinioTargets {
+
+    /**
+     * Name of the bucket of {@code spring.minio.bucket}, in the {@code target} tag of the metrics and in the health details.
+     */
+    public static final String DEFAULT = "default";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MinioTargets.class);
+
+    private final Map<String, Target> targets = new LinkedHashMap<>();
+
+    @Autowired
+    public MinioTargets(MinioConfigurationProperties minioConfigurationProperties,
+                        MinioService defaultService,
+                        ObjectProvider<MinioHttpClientCustomizer> httpClientCustomizers,
+                        @Nullable MinioCircuitBreakers circuitBreakers,
+                        ObjectProvider<MinioInstrumentation> instrumentations) throws Exception {
+        MinioInstrumentation instrumentation = MinioInstrumentation.of(instrumentations.orderedStream().collect(Collectors.toList()));
+        for (Map.Entry<String, MinioConfigurationProperties.Target> entry : minioConfigurationProperties.getTargets().entrySet()) {
+            String name = entry.getKey();
+            MinioConfigurationProperties.Target properties = entry.getValue();
+            if (DEFAULT.equals(name)) {
+                throw new IllegalArgumentException("spring.minio.targets." + name + " is reserved for spring.minio.bucket");
+            }
+            if (properties.getBucket() == null) {
+                throw new IllegalArgumentException("spring.minio.targets." + name + ".bucket is required");
+            }
+
+            OkHttpClient httpClient = MinioConfiguration.httpClient(name, minioConfigurationProperties, properties.getHttp(), httpClientCustomizers);
+            MinioClient minioClient = MinioClient.builder()
+                    .endpoint(properties.getUrl() != null ? properties.getUrl() : minioConfigurationProperties.getUrl())
+                    .credentials(
+                            properties.getAccessKey() != null ? properties.getAccessKey() : minioConfigurationProperties.getAccessKey(),
+                            properties.getSecretKey() != null ? properties.getSecretKey() : minioConfigurationProperties.getSecretKey())
+                    .httpClient(httpClient)
+                    .build();
+
+            if (minioConfigurationProperties.isCheckBucket() && !minioConfigurationProperties.isDeferBucketCheck()) {
+                try {
+                    MinioBucketVerifier.checkBucket(minioClient, properties.getBucket(), minioConfigurationProperties.isCreateBucket());
+                } catch (Exception e) {
+                    LOGGER.error("Error while checking bucket of target {}", name, e);
+                    throw e;
+                }
+            }
+
+            MinioService minioService = new MinioService(defaultService, minioClient, name, properties.getBucket(),
+                    circuitBreakers, instrumentation.forTarget(name));
+            targets.put(name, new Target(httpClient, minioClient, minioService));
+            LOGGER.debug("Minio target {} created on bucket {}", name, properties.getBucket());
+        }
+    }
+
+    /**
+     * @return Names of the targets
+     */
+    public Set<String> getNames() {
+        return Collections.unmodifiableSet(targets.keySet());
+    }
+
+    /**
+     * @param name Name of the target
+     * @return Service on the bucket of the target
+     * @throws IllegalArgumentException if the target is not defined
+     */
+    public MinioService getService(String name) {
+        return get(name).minioService;
+    }
+
+    /**
+     * @param name Name of the target
+     * @return Minio client of the target
+     * @throws IllegalArgumentException if the target is not defined
+     */
+    public MinioClient getClient(String name) {
+        return get(name).minioClient;
+    }
+
+    /**
+     * @param name Name of the target
+     * @return HTTP client of the target
+     * @throws IllegalArgumentException if the target is not defined
+     */
+    OkHttpClient getHttpClient(String name) {
+        return get(name).httpClient;
+    }
+
+    private Target get(String name) {
+        Target target = targets.get(name);
+        if (target == null) {
+            throw new IllegalArgumentException("Unknown Minio target " + name);
+        }
+        return target;
+    }
+
+    /**
+     * Stop the services and release the connections of the targets when the application context is closed.
+     */
+    @PreDestroy
+    public void shutdown() {
+        for (Target target : targets.values()) {
+            target.minioService.shutdown();
+            target.httpClient.dispatcher().executorService().shutdown();
+            target.httpClient.connectionPool().evictAll();
+        }
+    }
+
+    private static class Target {
+        private final OkHttpClient httpClient;
+        private final MinioClient minioClient;
+        private final MinioService minioService;
+
+        private Target(OkHttpClient httpClient, MinioClient minioClient, MinioService minioService) {
+            this.httpClient = httpClient;
+            this.minioClient = minioClient;
+            this.minioService = minioService;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright Jordan LEFEBURE © 2019.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.jlefebure.spring.boot.minio;
+
+import brave.Span;
+import brave.Tracer;
+import brave.Tracing;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Create a Brave span for each operation of {@link MinioService}, child of the current span. The span is tagged with
+ * the bucket, the prefix of the object, and when known the transferred size, the number of parts, the number of
+ * retries and whether a request was hedged. Tasks run on executors, like the parts of an upload, are run in the scope of the span.
+ * The tracing bean is resolved on the first operation, so this instrumentation does nothing until the tracer is ready.
+ *
+ * @author Jordan LEFEBURE
+ */
+class MinioTracing implements MinioInstrumentation {
+
+    private final ObjectProvider<Tracing> tracingProvider;
+    private volatile Tracing tracing;
+
+    MinioTracing(ObjectProvider<Tracing> tracingProvider) {
+        this.tracingProvider = tracingProvider;
+    }
+
+    private Tracing tracing() {
+        Tracing current = tracing;
+        if (current == null) {
+            current = tracingProvider.getIfAvailable();
+            tracing = current;
+        }
+        return current;
+    }
+
+    @Override
+    public Context start(String operation, String bucket, String object) {
+        Tracing tracing = tracing();
+        if (tracing == null) {
+            return Context.NOOP;
+        }
+        Tracer tracer = tracing.tracer();
+        Span span = tracer.nextSpan().name(operation);
+        if (span.isNoop()) {
+            return Context.NOOP;
+        }
+        span.remoteServiceName("minio");
+        if (bucket != null) {
+            span.tag("minio.bucket", bucket);
+        }
+        if (object != null) {
+            span.tag("minio.prefix", object.substring(0, object.lastIndexOf('/') + 1));
+        }
+        span.start();
+        return new Context() {
+            private final AtomicLong bytes = new AtomicLong();
+            private final AtomicInteger parts = new AtomicInteger();
+            private final AtomicInteger retries = new AtomicInteger();
+            private volatile boolean hedged;
+
+            @Override
+            public void bytes(long count) {
+                bytes.addAndGet(count);
+            }
+
+            @Override
+            public void parts(int count) {
+                parts.set(count);
+            }
+
+            @Override
+            public void retry() {
+                retries.incrementAndGet();
+            }
+
+            @Override
+            public void hedge() {
+                hedged = true;
+            }
+
+            @Override
+            public <T> Callable<T> wrap(Callable<T> task) {
+                return () -> {
+                    try (Tracer.SpanInScope scope = tracer.withSpanInScope(span)) {
+                        return task.call();
+                    }
+                };
+            }
+
+            @Override
+            public void stop(Throwable error) {
+                if (bytes.get() > 0) {
+                    span.tag("minio.size", String.valueOf(bytes.get()));
+                }
+                if (parts.get() > 0) {
+                    span.tag("minio.parts", String.valueOf(parts.get()));
+                }
+                if (retries.get() > 0) {
+                    span.tag("minio.retries", String.valueOf(retries.get()));
+                }
+                if (hedged) {
+                    span.tag("minio.hedged", "true");
+                }
+                if (error != null) {
+                    span.error(error);
+                }
+                span.finish();
+            }
+        };
+    }
+
+    @Override
+    public <T> Callable<T> wrap(Callable<T> task) {
+        Tracing tracing = tracing();
+        return tracing == null ? task : tracing.currentTraceContext().wrap(task);
+    }
+}
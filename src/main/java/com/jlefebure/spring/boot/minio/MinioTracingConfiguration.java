@@ -0,0 +1,39 @@
+/*
+ * Copyright Jordan LEFEBURE © 2019.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.jlefebure.spring.boot.minio;
+
+import brave.Tracing;
+import io.minio.MinioClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnClass({MinioClient.class, Tracing.class})
+@ConditionalOnProperty(prefix = "spring.minio.tracing", name = "enabled", havingValue = "true")
+public class MinioTracingConfiguration {
+
+    /**
+     * Trace each operation of {@link MinioService} with the Brave tracer of the application.
+     */
+    @Bean
+    public MinioInstrumentation minioTracing(ObjectProvider<Tracing> tracing) {
+        return new MinioTracing(tracing);
+    }
+}
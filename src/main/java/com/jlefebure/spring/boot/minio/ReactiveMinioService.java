@@ -0,0 +1,128 @@
+/*
+ * Copyright Jordan LEFEBURE © 2019.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.jlefebure.spring.boot.minio;
+
+import io.minio.StatObjectResponse;
+import io.minio.messages.Item;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Reactive variant of {@link MinioService}, registered as a bean when Project Reactor is on the classpath.
+ * Blocking calls of the Minio SDK are run on a bounded elastic scheduler, so they never block the calling thread.
+ * All streams are pulled on demand : listings fetch a new page and downloads read a new buffer only when the
+ * subscriber requests more, and uploads request a new buffer from the publisher only when the previous one is sent.
+ * Errors are propagated as {@link MinioException} or {@link MinioFetchException} signals.
+ *
+ * @author Jordan LEFEBURE
+ */
+@Service
+@ConditionalOnClass({Flux.class, DataBuffer.class})
+public class ReactiveMinioService {
+
+    /**
+     * Size of the buffers emitted while downloading an object.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final MinioService minioService;
+    private final Scheduler scheduler = Schedulers.boundedElastic();
+
+    @Autowired
+    public ReactiveMinioService(MinioService minioService) {
+        this.minioService = minioService;
+    }
+
+    /**
+     * List objects with the prefix given in parameter for the bucket. Pages are fetched on demand.
+     *
+     * @param path      Prefix of seeked list of object
+     * @param recursive If true, objects within folders are returned too
+     * @return Flux of items
+     */
+    public Flux<Item> list(Path path, boolean recursive) {
+        return Flux.fromStream(() -> minioService.stream(path, recursive))
+                .subscribeOn(scheduler);
+    }
+
+    /**
+     * Get an object from Minio. A new buffer is read only when the subscriber requests it.
+     *
+     * @param path Path with prefix to the object. Object name must be included.
+     * @return Flux of the buffers of the object. The subscriber must release each buffer.
+     */
+    public Flux<DataBuffer> get(Path path) {
+        return DataBufferUtils.readInputStream(() -> minioService.get(path), DefaultDataBufferFactory.sharedInstance, BUFFER_SIZE)
+                .subscribeOn(scheduler);
+    }
+
+    /**
+     * Get metadata of an object from Minio
+     *
+     * @param path Path with prefix to the object. Object name must be included.
+     * @return Metadata of the object
+     */
+    public Mono<StatObjectResponse> getMetadata(Path path) {
+        return Mono.fromCallable(() -> minioService.getMetadata(path))
+                .subscribeOn(scheduler);
+    }
+
+    /**
+     * Upload content to Minio part by part. Buffers are requested from the publisher one at a time, and are released
+     * once copied.
+     *
+     * @param source      Path with prefix to the object. Object name must be included.
+     * @param content     Content of the object
+     * @param contentType MIME type for the object, can be null
+     * @param headers     Additional headers to put on the file, can be null
+     * @return Completes when the object is uploaded
+     */
+    public Mono<Void> upload(Path source, Publisher<DataBuffer> content, String contentType, Map<String, String> headers) {
+        return Mono.<Void>fromCallable(() -> {
+            try (MinioDataBufferInputStream stream = new MinioDataBufferInputStream()) {
+                content.subscribe(stream);
+                minioService.uploadStream(source, stream, contentType, headers);
+            }
+            return null;
+        }).subscribeOn(scheduler);
+    }
+
+    /**
+     * Remove a file from Minio
+     *
+     * @param source Path with prefix to the object. Object name must be included.
+     * @return Completes when the object is removed
+     */
+    public Mono<Void> remove(Path source) {
+        return Mono.<Void>fromCallable(() -> {
+            minioService.remove(source);
+            return null;
+        }).subscribeOn(scheduler);
+    }
+}
@@ -16,18 +16,20 @@
 
 package com.jlefebure.spring.boot.minio.notification;
 
+import io.minio.messages.Event;
 import io.minio.messages.NotificationRecords;
-import org.springframework.scheduling.annotation.Async;
 
 import java.lang.annotation.*;
 
 
 /**
  * Add a listener to the Minio bucket, which handle the events given in the {@code value} parameter.
- * The annotated method should have a parameter {@link NotificationRecords} and return {@code void}.
+ * The annotated method should have a single parameter, either {@link NotificationRecords}, {@link Event} to be called
+ * once per event, or {@code List<Event>} to be called with batches of events, and return {@code void}.
+ * Notifications are processed on the notification executor of the starter, configured with
+ * {@code spring.minio.notification.*} properties.
  */
 
-@Async
 @Inherited
 @Target(ElementType.METHOD)
 @Retention(RetentionPolicy.RUNTIME)
@@ -0,0 +1,116 @@
+/*
+ * Copyright Jordan LEFEBURE © 2019.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.jlefebure.spring.boot.minio;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MinioAsyncServiceTest {
+
+    private MinioService minioService;
+    private MinioConfigurationProperties properties;
+    private AtomicReference<String> propagatingThread;
+    private MinioAsyncService asyncService;
+
+    @BeforeEach
+    void setUp() {
+        minioService = mock(MinioService.class);
+        properties = new MinioConfigurationProperties();
+        properties.getAsync().setThreads(2);
+        propagatingThread = new AtomicReference<>();
+        when(minioService.propagate(any())).thenAnswer(invocation -> {
+            propagatingThread.set(Thread.currentThread().getName());
+            return invocation.getArgument(0);
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (asyncService != null) {
+            asyncService.shutdown();
+        }
+    }
+
+    private MinioAsyncService service() {
+        asyncService = new MinioAsyncService(minioService, properties);
+        return asyncService;
+    }
+
+    @Test
+    void operationRunsOnAsyncExecutor() throws Exception {
+        AtomicReference<String> operationThread = new AtomicReference<>();
+        Path path = Paths.get("object");
+        when(minioService.get(path)).thenAnswer(invocation -> {
+            operationThread.set(Thread.currentThread().getName());
+            return null;
+        });
+
+        service().get(path).get(5, TimeUnit.SECONDS);
+
+        assertThat(operationThread.get()).startsWith("minio-async-");
+        assertThat(propagatingThread.get()).isEqualTo(Thread.currentThread().getName());
+    }
+
+    @Test
+    void futureCompletesWithExceptionOfService() throws Exception {
+        Path path = Paths.get("object");
+        MinioException failure = new MinioException("Error while deleting object", new IllegalStateException("boom"));
+        doThrow(failure).when(minioService).remove(path);
+
+        CompletableFuture<Void> future = service().remove(path);
+
+        assertThatThrownBy(() -> future.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseReference(failure);
+    }
+
+    @Test
+    void futureFailsWhenExecutorIsShutDown() {
+        MinioAsyncService service = service();
+        service.shutdown();
+
+        CompletableFuture<Void> future = service.remove(Paths.get("object"));
+
+        assertThat(future).isCompletedExceptionally();
+        assertThatThrownBy(future::join).hasCauseInstanceOf(RejectedExecutionException.class);
+    }
+
+    @Test
+    void virtualThreadsFallBackToThreadPoolWhenUnavailable() throws Exception {
+        properties.getAsync().setVirtualThreads(true);
+        when(minioService.list()).thenReturn(Collections.emptyList());
+
+        assertThat(service().list().get(5, TimeUnit.SECONDS)).isEmpty();
+    }
+}
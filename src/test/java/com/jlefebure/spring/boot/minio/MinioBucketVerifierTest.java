@@ -0,0 +1,59 @@
+/*
+ * Copyright Jordan LEFEBURE © 2019.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.jlefebure.spring.boot.minio;
+
+import io.minio.MinioClient;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MinioBucketVerifierTest {
+
+    @Test
+    void zeroBackoffDoesNotRetryInATightLoop() throws Exception {
+        MinioConfigurationProperties properties = new MinioConfigurationProperties();
+        properties.setBucket("bucket");
+        properties.setDeferBucketCheck(true);
+        properties.getBucketCheck().setMaxAttempts(3);
+        properties.getBucketCheck().setInitialBackoff(Duration.ZERO);
+        properties.getBucketCheck().setMaxBackoff(Duration.ZERO);
+        MinioClient minioClient = mock(MinioClient.class);
+        when(minioClient.bucketExists(any())).thenThrow(new IOException("connection refused"));
+        MinioBucketVerifier verifier = new MinioBucketVerifier(minioClient, properties, mock(MinioTargets.class));
+
+        long start = System.nanoTime();
+        verifier.start();
+        try {
+            while (verifier.getState() != MinioBucketVerifier.State.FAILED) {
+                assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(5));
+                Thread.sleep(10);
+            }
+        } finally {
+            verifier.stop();
+        }
+
+        // Two retries, each delayed by at least half of the minimum backoff
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright Jordan LEFEBURE © 2019.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.jlefebure.spring.boot.minio;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MinioBufferPoolTest {
+
+    @Test
+    void reusesReleasedBuffers() throws Exception {
+        MinioBufferPool pool = new MinioBufferPool(16, 2);
+
+        byte[] buffer = pool.acquire();
+        pool.release(buffer);
+
+        assertThat(buffer).hasSize(16);
+        assertThat(pool.acquire()).isSameAs(buffer);
+    }
+
+    @Test
+    void blocksUntilBufferIsReleased() throws Exception {
+        MinioBufferPool pool = new MinioBufferPool(16, 1);
+        byte[] buffer = pool.acquire();
+
+        CompletableFuture<byte[]> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return pool.acquire();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertThatThrownBy(() -> waiting.get(100, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+
+        pool.release(buffer);
+        assertThat(waiting.get(5, TimeUnit.SECONDS)).isSameAs(buffer);
+    }
+
+    @Test
+    void readsFullyFromShortReads() throws IOException {
+        byte[] data = new byte[10];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        // Return at most 3 bytes per read, like a network stream
+        InputStream stream = new FilterInputStream(new ByteArrayInputStream(data)) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return super.read(b, off, Math.min(len, 3));
+            }
+        };
+
+        byte[] buffer = new byte[8];
+        assertThat(MinioBufferPool.readFully(stream, buffer)).isEqualTo(8);
+        assertThat(buffer).containsExactly(0, 1, 2, 3, 4, 5, 6, 7);
+        assertThat(MinioBufferPool.readFully(stream, buffer)).isEqualTo(2);
+        assertThat(MinioBufferPool.readFully(stream, buffer)).isZero();
+    }
+}
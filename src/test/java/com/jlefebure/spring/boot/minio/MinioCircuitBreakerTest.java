@@ -0,0 +1,176 @@
+/*
+ * Copyright Jordan LEFEBURE © 2019.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.jlefebure.spring.boot.minio;
+
+import io.minio.errors.ErrorResponseException;
+import io.minio.messages.ErrorResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MinioCircuitBreakerTest {
+
+    private static final long SLOW = TimeUnit.SECONDS.toNanos(20);
+
+    private MinioConfigurationProperties.CircuitBreaker properties;
+    private List<String> transitions;
+
+    @BeforeEach
+    void setUp() {
+        properties = new MinioConfigurationProperties().getCircuitBreaker();
+        properties.setFailureRateThreshold(50);
+        properties.setSlowCallRateThreshold(100);
+        properties.setSlowCallDuration(Duration.ofSeconds(10));
+        properties.setWindowSize(10);
+        properties.setMinimumCalls(4);
+        properties.setWaitDurationInOpenState(Duration.ofMinutes(1));
+        properties.setPermittedCallsInHalfOpenState(2);
+        transitions = new ArrayList<>();
+    }
+
+    private MinioCircuitBreaker circuitBreaker() {
+        MinioCircuitBreaker.Listener listener = new MinioCircuitBreaker.Listener() {
+            @Override
+            public void onStateTransition(MinioCircuitBreaker circuitBreaker, MinioCircuitBreaker.State from, MinioCircuitBreaker.State to) {
+                transitions.add(from + "->" + to);
+            }
+
+            @Override
+            public void onRejected(MinioCircuitBreaker circuitBreaker, String reason) {
+                transitions.add("rejected:" + reason);
+            }
+        };
+        return new MinioCircuitBreaker(MinioTargets.DEFAULT, "bucket", properties, Collections.singletonList(listener));
+    }
+
+    private static void call(MinioCircuitBreaker circuitBreaker, Throwable error) throws InterruptedException {
+        circuitBreaker.onComplete(circuitBreaker.acquire(), error);
+    }
+
+    @Test
+    void staysClosedBelowMinimumCalls() throws Exception {
+        MinioCircuitBreaker circuitBreaker = circuitBreaker();
+        for (int i = 0; i < 3; i++) {
+            call(circuitBreaker, new IOException("connection reset"));
+        }
+
+        assertThat(circuitBreaker.getState()).isEqualTo(MinioCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void opensWhenFailureRateIsReached() throws Exception {
+        MinioCircuitBreaker circuitBreaker = circuitBreaker();
+        call(circuitBreaker, null);
+        call(circuitBreaker, null);
+        call(circuitBreaker, new IOException("connection reset"));
+        call(circuitBreaker, new IOException("connection reset"));
+
+        assertThat(circuitBreaker.getState()).isEqualTo(MinioCircuitBreaker.State.OPEN);
+        assertThatThrownBy(circuitBreaker::acquire).isInstanceOf(MinioCallNotPermittedException.class);
+        assertThat(transitions).containsExactly("CLOSED->OPEN", "rejected:open");
+    }
+
+    @Test
+    void missingObjectIsNotAFailure() throws Exception {
+        MinioCircuitBreaker circuitBreaker = circuitBreaker();
+        ErrorResponseException missing = new ErrorResponseException(
+                new ErrorResponse("NoSuchKey", "Not found", "bucket", "a", null, null, null), null, null);
+        for (int i = 0; i < 10; i++) {
+            call(circuitBreaker, missing);
+        }
+
+        assertThat(circuitBreaker.getState()).isEqualTo(MinioCircuitBreaker.State.CLOSED);
+        assertThat(circuitBreaker.getFailureRate()).isZero();
+    }
+
+    @Test
+    void opensWhenAllCallsAreSlow() throws Exception {
+        MinioCircuitBreaker circuitBreaker = circuitBreaker();
+        for (int i = 0; i < 4; i++) {
+            circuitBreaker.onComplete(circuitBreaker.acquire() - SLOW, null);
+        }
+
+        assertThat(circuitBreaker.getState()).isEqualTo(MinioCircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void untimedCallsAreNeverSlow() throws Exception {
+        MinioCircuitBreaker circuitBreaker = circuitBreaker();
+        for (int i = 0; i < 10; i++) {
+            circuitBreaker.onComplete(circuitBreaker.acquire() - SLOW, null, false);
+        }
+
+        assertThat(circuitBreaker.getState()).isEqualTo(MinioCircuitBreaker.State.CLOSED);
+        assertThat(circuitBreaker.getSlowCallRate()).isZero();
+    }
+
+    @Test
+    void closesAfterSuccessfulTrialCalls() throws Exception {
+        properties.setWaitDurationInOpenState(Duration.ZERO);
+        MinioCircuitBreaker circuitBreaker = circuitBreaker();
+        for (int i = 0; i < 4; i++) {
+            call(circuitBreaker, new IOException("connection reset"));
+        }
+
+        long first = circuitBreaker.acquire();
+        long second = circuitBreaker.acquire();
+        assertThat(circuitBreaker.getState()).isEqualTo(MinioCircuitBreaker.State.HALF_OPEN);
+        assertThatThrownBy(circuitBreaker::acquire).isInstanceOf(MinioCallNotPermittedException.class);
+        circuitBreaker.onComplete(first, null);
+        circuitBreaker.onComplete(second, null);
+
+        assertThat(circuitBreaker.getState()).isEqualTo(MinioCircuitBreaker.State.CLOSED);
+        assertThat(transitions).containsExactly("CLOSED->OPEN", "OPEN->HALF_OPEN", "rejected:open", "HALF_OPEN->CLOSED");
+    }
+
+    @Test
+    void opensAgainAfterFailedTrialCalls() throws Exception {
+        properties.setWaitDurationInOpenState(Duration.ZERO);
+        MinioCircuitBreaker circuitBreaker = circuitBreaker();
+        for (int i = 0; i < 4; i++) {
+            call(circuitBreaker, new IOException("connection reset"));
+        }
+        call(circuitBreaker, null);
+        call(circuitBreaker, new IOException("connection reset"));
+
+        assertThat(transitions).containsExactly("CLOSED->OPEN", "OPEN->HALF_OPEN", "HALF_OPEN->OPEN");
+    }
+
+    @Test
+    void bulkheadRejectsCallsAboveLimit() throws Exception {
+        properties.setMaxConcurrentCalls(1);
+        properties.setMaxWait(Duration.ZERO);
+        MinioCircuitBreaker circuitBreaker = circuitBreaker();
+
+        long start = circuitBreaker.acquire();
+        assertThat(circuitBreaker.getAvailableConcurrentCalls()).isZero();
+        assertThatThrownBy(circuitBreaker::acquire).isInstanceOf(MinioCallNotPermittedException.class);
+        circuitBreaker.onComplete(start, null);
+
+        assertThat(circuitBreaker.getAvailableConcurrentCalls()).isEqualTo(1);
+        assertThat(transitions).containsExactly("rejected:bulkhead");
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright Jordan LEFEBURE © 2019.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.jlefebure.spring.boot.minio;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.util.unit.DataSize;
+
+import java.net.Socket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MinioConfigurationHttpClientTest {
+
+    private MinioConfigurationProperties properties;
+    private StaticListableBeanFactory beanFactory;
+
+    @BeforeEach
+    void setUp() {
+        properties = new MinioConfigurationProperties();
+        beanFactory = new StaticListableBeanFactory();
+    }
+
+    private OkHttpClient httpClient(String target) {
+        ObjectProvider<MinioHttpClientCustomizer> customizers = beanFactory.getBeanProvider(MinioHttpClientCustomizer.class);
+        return MinioConfiguration.httpClient(target, properties, properties.getHttp(), customizers);
+    }
+
+    @Test
+    void timeoutsAreApplied() {
+        properties.setConnectTimeout(Duration.ofSeconds(3));
+        properties.setWriteTimeout(Duration.ofSeconds(4));
+        properties.setReadTimeout(Duration.ofSeconds(5));
+
+        OkHttpClient client = httpClient(MinioTargets.DEFAULT);
+
+        assertThat(client.connectTimeoutMillis()).isEqualTo(3000);
+        assertThat(client.writeTimeoutMillis()).isEqualTo(4000);
+        assertThat(client.readTimeoutMillis()).isEqualTo(5000);
+    }
+
+    @Test
+    void http2IsNegotiatedOnlyWhenEnabled() {
+        assertThat(httpClient(MinioTargets.DEFAULT).protocols()).containsExactly(Protocol.HTTP_1_1);
+
+        properties.getHttp().setHttp2(true);
+
+        assertThat(httpClient(MinioTargets.DEFAULT).protocols()).containsExactly(Protocol.HTTP_2, Protocol.HTTP_1_1);
+    }
+
+    @Test
+    void socketOptionsAreApplied() throws Exception {
+        properties.getHttp().setTcpNoDelay(false);
+        properties.getHttp().setSendBufferSize(DataSize.ofKilobytes(64));
+        properties.getHttp().setReceiveBufferSize(DataSize.ofKilobytes(128));
+
+        try (Socket socket = httpClient(MinioTargets.DEFAULT).socketFactory().createSocket()) {
+            assertThat(socket.getTcpNoDelay()).isFalse();
+            // The OS may round the buffer sizes up, never down
+            assertThat(socket.getSendBufferSize()).isGreaterThanOrEqualTo(64 * 1024);
+            assertThat(socket.getReceiveBufferSize()).isGreaterThanOrEqualTo(128 * 1024);
+        }
+    }
+
+    @Test
+    void tcpNoDelayIsEnabledByDefault() throws Exception {
+        try (Socket socket = httpClient(MinioTargets.DEFAULT).socketFactory().createSocket()) {
+            assertThat(socket.getTcpNoDelay()).isTrue();
+        }
+    }
+
+    @Test
+    void interceptorsAreAddedOnlyWhenEnabled() {
+        OkHttpClient client = httpClient(MinioTargets.DEFAULT);
+        assertThat(client.interceptors()).doesNotContain(MinioContentCache.INTERCEPTOR);
+        assertThat(client.networkInterceptors()).doesNotContain(MinioHedging.INTERCEPTOR);
+
+        properties.getContentCache().setEnabled(true);
+        properties.getHedge().setEnabled(true);
+        client = httpClient(MinioTargets.DEFAULT);
+
+        assertThat(client.interceptors()).contains(MinioContentCache.INTERCEPTOR);
+        assertThat(client.networkInterceptors()).contains(MinioHedging.INTERCEPTOR);
+    }
+
+    @Test
+    void customizersAreAppliedAfterProperties() {
+        List<String> targets = new ArrayList<>();
+        beanFactory.addBean("customizer", new MinioHttpClientCustomizer() {
+            @Override
+            public void customize(OkHttpClient.Builder builder) {
+                builder.readTimeout(Duration.ofSeconds(42));
+            }
+
+            @Override
+            public void customize(String target, OkHttpClient.Builder builder) {
+                targets.add(target);
+                MinioHttpClientCustomizer.super.customize(target, builder);
+            }
+        });
+        properties.setReadTimeout(Duration.ofSeconds(5));
+
+        OkHttpClient client = httpClient("archive");
+
+        assertThat(client.readTimeoutMillis()).isEqualTo(42000);
+        assertThat(targets).containsExactly("archive");
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright Jordan LEFEBURE © 2019.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.jlefebure.spring.boot.minio;
+
+import com.sun.net.httpserver.HttpServer;
+import io.minio.GetObjectArgs;
+import io.minio.GetObjectResponse;
+import io.minio.MinioClient;
+import io.minio.errors.ErrorResponseException;
+import io.minio.messages.ErrorResponse;
+import okhttp3.Headers;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MinioContentCacheTest {
+
+    @TempDir
+    Path directory;
+
+    private MinioConfigurationProperties properties;
+    private List<String> requests;
+
+    @BeforeEach
+    void setUp() {
+        properties = new MinioConfigurationProperties();
+        properties.getContentCache().setDirectory(directory);
+        properties.getContentCache().setMaxSize(DataSize.ofBytes(10));
+        requests = new ArrayList<>();
+    }
+
+    /**
+     * Loader answering with the given content, or with a 304 if the ETag of the request is the one of the content.
+     */
+    private MinioContentCache.ObjectLoader loader(String object, String content) {
+        String etag = object + "-" + content;
+        return notMatchETag -> {
+            requests.add(object + ":" + notMatchETag);
+            if (etag.equals(notMatchETag)) {
+                throw notModified();
+            }
+            Headers headers = Headers.of("ETag", "\"" + etag + "\"", "Content-Length", String.valueOf(content.length()));
+            return new GetObjectResponse(headers, "bucket", "", object,
+                    new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+        };
+    }
+
+    private static ErrorResponseException notModified() {
+        Response response = new Response.Builder()
+                .request(new Request.Builder().url("http://minio:9000/bucket/object").build())
+                .protocol(Protocol.HTTP_1_1)
+                .code(304)
+                .message("Not Modified")
+                .build();
+        return new ErrorResponseException(new ErrorResponse("NotModified", "Not Modified", "bucket", "object", "resource", "request", "host"), response, null);
+    }
+
+    private static String read(InputStream stream) throws IOException {
+        try (InputStream in = stream) {
+            return StreamUtils.copyToString(in, StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    void readsUnchangedObjectFromDisk() throws Exception {
+        MinioContentCache cache = new MinioContentCache(properties);
+
+        assertThat(read(cache.get("a", loader("a", "1234")))).isEqualTo("1234");
+        assertThat(read(cache.get("a", loader("a", "1234")))).isEqualTo("1234");
+
+        assertThat(requests).containsExactly("a:null", "a:a-1234");
+    }
+
+    @Test
+    void downloadsChangedObjectAgain() throws Exception {
+        MinioContentCache cache = new MinioContentCache(properties);
+
+        assertThat(read(cache.get("a", loader("a", "1234")))).isEqualTo("1234");
+        assertThat(read(cache.get("a", loader("a", "5678")))).isEqualTo("5678");
+        assertThat(read(cache.get("a", loader("a", "5678")))).isEqualTo("5678");
+
+        assertThat(requests).containsExactly("a:null", "a:a-1234", "a:a-5678");
+    }
+
+    @Test
+    void propagatesOtherErrors() throws Exception {
+        MinioContentCache cache = new MinioContentCache(properties);
+        read(cache.get("a", loader("a", "1234")));
+
+        assertThatThrownBy(() -> cache.get("a", etag -> {
+            throw new ErrorResponseException(new ErrorResponse("AccessDenied", "Access Denied", "bucket", "a", "resource", "request", "host"), null, null);
+        })).isInstanceOf(ErrorResponseException.class);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedObjects() throws Exception {
+        MinioContentCache cache = new MinioContentCache(properties);
+
+        read(cache.get("a", loader("a", "1234")));
+        read(cache.get("b", loader("b", "1234")));
+        // a is used again, so b is the least recently used once c exceeds the 10 bytes
+        read(cache.get("a", loader("a", "1234")));
+        read(cache.get("c", loader("c", "1234")));
+        requests.clear();
+        read(cache.get("a", loader("a", "1234")));
+        read(cache.get("b", loader("b", "1234")));
+
+        assertThat(requests).containsExactly("a:a-1234", "b:null");
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files.count()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void doesNotCacheLargeObjects() throws Exception {
+        properties.getContentCache().setMaxObjectSize(DataSize.ofBytes(3));
+        MinioContentCache cache = new MinioContentCache(properties);
+
+        read(cache.get("a", loader("a", "1234")));
+        read(cache.get("a", loader("a", "1234")));
+
+        assertThat(requests).containsExactly("a:null", "a:null");
+    }
+
+    @Test
+    void removesFilesOfPreviousRunAtStartup() throws Exception {
+        Path previous = Files.createFile(directory.resolve("previous.minio-cache"));
+        Path other = Files.createFile(directory.resolve("other.txt"));
+
+        new MinioContentCache(properties);
+
+        assertThat(previous).doesNotExist();
+        assertThat(other).exists();
+    }
+
+    @Test
+    void notModifiedResponseKeepsItsStatusCode() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+        });
+        server.start();
+        try {
+            MinioClient minioClient = MinioClient.builder()
+                    .endpoint("http://127.0.0.1:" + server.getAddress().getPort())
+                    .credentials("access", "secret")
+                    .region("us-east-1")
+                    .httpClient(new OkHttpClient.Builder().addInterceptor(MinioContentCache.INTERCEPTOR).build())
+                    .build();
+
+            assertThatThrownBy(() -> minioClient.getObject(GetObjectArgs.builder()
+                    .bucket("bucket")
+                    .object("object")
+                    .notMatchETag("etag")
+                    .build()))
+                    .isInstanceOfSatisfying(ErrorResponseException.class,
+                            e -> assertThat(e.response().code()).isEqualTo(304));
+        } finally {
+            server.stop(0);
+        }
+    }
+}
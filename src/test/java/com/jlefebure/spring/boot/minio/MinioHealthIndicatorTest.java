@@ -0,0 +1,98 @@
+/*
+ * Copyright Jordan LEFEBURE © 2019.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.jlefebure.spring.boot.minio;
+
+import io.minio.BucketExistsArgs;
+import io.minio.MinioClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MinioHealthIndicatorTest {
+
+    private MinioClient minioClient;
+    private MinioHealthIndicator healthIndicator;
+
+    @BeforeEach
+    void setUp() {
+        minioClient = mock(MinioClient.class);
+        MinioConfigurationProperties properties = new MinioConfigurationProperties();
+        properties.setBucket("bucket");
+        properties.getHealth().setTimeout(Duration.ofMillis(100));
+        MinioBucketVerifier bucketVerifier = mock(MinioBucketVerifier.class);
+        when(bucketVerifier.getState()).thenReturn(MinioBucketVerifier.State.VERIFIED);
+        healthIndicator = new MinioHealthIndicator(minioClient, properties, null, bucketVerifier);
+    }
+
+    @AfterEach
+    void tearDown() {
+        healthIndicator.stop();
+    }
+
+    @Test
+    void reportsUpWhenBucketExists() throws Exception {
+        when(minioClient.bucketExists(any(BucketExistsArgs.class))).thenReturn(true);
+
+        healthIndicator.refresh();
+
+        assertThat(healthIndicator.health().getStatus()).isEqualTo(Status.UP);
+    }
+
+    @Test
+    void startsNoCheckWhileHungCheckIsRunning() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch completed = new CountDownLatch(1);
+        when(minioClient.bucketExists(any(BucketExistsArgs.class))).thenAnswer(invocation -> {
+            release.await();
+            completed.countDown();
+            return true;
+        });
+
+        healthIndicator.refresh();
+        Health timedOut = healthIndicator.health();
+        assertThat(timedOut.getStatus()).isEqualTo(Status.DOWN);
+        assertThat(timedOut.getDetails().get("reason").toString()).startsWith("Check timed out");
+
+        healthIndicator.refresh();
+        Health stillRunning = healthIndicator.health();
+        assertThat(stillRunning.getStatus()).isEqualTo(Status.DOWN);
+        assertThat(stillRunning.getDetails()).containsEntry("reason", "Previous check is still running");
+        verify(minioClient, times(1)).bucketExists(any(BucketExistsArgs.class));
+
+        release.countDown();
+        assertThat(completed.await(5, TimeUnit.SECONDS)).isTrue();
+        // The flag is cleared when the hung check completes
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        do {
+            healthIndicator.refresh();
+        } while (healthIndicator.health().getStatus() != Status.UP && System.nanoTime() < deadline);
+        assertThat(healthIndicator.health().getStatus()).isEqualTo(Status.UP);
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright Jordan LEFEBURE © 2019.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.jlefebure.spring.boot.minio;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MinioHedgingTest {
+
+    private MinioHedging hedging;
+    private List<String> events;
+    private MinioInstrumentation.Context context;
+
+    @BeforeEach
+    void setUp() {
+        MinioConfigurationProperties.Hedge properties = new MinioConfigurationProperties().getHedge();
+        properties.setMinDelay(Duration.ofMillis(20));
+        properties.setMaxHedgesPerSecond(100);
+        hedging = new MinioHedging(properties);
+        events = new CopyOnWriteArrayList<>();
+        context = new MinioInstrumentation.Context() {
+            @Override
+            public void hedge() {
+                events.add("hedge");
+            }
+
+            @Override
+            public void stop(Throwable error) {
+            }
+        };
+    }
+
+    @AfterEach
+    void tearDown() {
+        hedging.shutdown();
+    }
+
+    private void warmUp(String operation) throws Exception {
+        for (int i = 0; i < 128; i++) {
+            hedging.call(operation, context, () -> "warm", events::add);
+        }
+        events.clear();
+    }
+
+    @Test
+    void runsOnCallingThreadWithoutHedgingBeforeEnoughSamples() throws Exception {
+        Thread caller = Thread.currentThread();
+        String result = hedging.call("getObject", context, () -> {
+            assertThat(Thread.currentThread()).isSameAs(caller);
+            Thread.sleep(50);
+            return "slow";
+        }, events::add);
+
+        assertThat(result).isEqualTo("slow");
+        assertThat(events).isEmpty();
+    }
+
+    @Test
+    void keepsDuplicateResponseWhenPrimaryIsSlow() throws Exception {
+        warmUp("getObject");
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = hedging.call("getObject", context, () -> {
+            if (attempts.incrementAndGet() == 1) {
+                Thread.sleep(500);
+                return "primary";
+            }
+            return "hedge";
+        }, response -> events.add("discard:" + response));
+
+        assertThat(result).isEqualTo("hedge");
+        assertThat(events).containsExactly("hedge", "discard:primary");
+    }
+
+    @Test
+    void doesNotHedgeFastRequests() throws Exception {
+        warmUp("getObject");
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = hedging.call("getObject", context, () -> {
+            attempts.incrementAndGet();
+            return "primary";
+        }, response -> events.add("discard:" + response));
+
+        Thread.sleep(100);
+        assertThat(result).isEqualTo("primary");
+        assertThat(attempts).hasValue(1);
+        assertThat(events).isEmpty();
+    }
+
+    @Test
+    void throwsErrorOfPrimaryWhenNotHedged() throws Exception {
+        warmUp("getObject");
+
+        assertThatThrownBy(() -> hedging.<String>call("getObject", context, () -> {
+            throw new IOException("broken");
+        }, events::add)).isInstanceOf(IOException.class).hasMessage("broken");
+    }
+
+    @Test
+    void keepsLatenciesPerOperation() throws Exception {
+        warmUp("statObject");
+        AtomicInteger attempts = new AtomicInteger();
+
+        hedging.call("getObject", context, () -> {
+            attempts.incrementAndGet();
+            Thread.sleep(100);
+            return "primary";
+        }, events::add);
+
+        assertThat(attempts).hasValue(1);
+        assertThat(events).isEmpty();
+    }
+
+    @Test
+    void cancelsBlockedHttpCallOfLosingPrimary() throws Exception {
+        warmUp("getObject");
+        OkHttpClient client = new OkHttpClient.Builder()
+                .readTimeout(30, TimeUnit.SECONDS)
+                .addNetworkInterceptor(MinioHedging.INTERCEPTOR)
+                .build();
+        try (ServerSocket server = new ServerSocket(0)) {
+            // Accept the connection and never answer, so the primary request blocks reading the response
+            Thread acceptor = new Thread(() -> {
+                try (Socket ignored = server.accept()) {
+                    Thread.sleep(30_000);
+                } catch (IOException | InterruptedException e) {
+                    // Test is over
+                }
+            });
+            acceptor.setDaemon(true);
+            acceptor.start();
+
+            AtomicInteger attempts = new AtomicInteger();
+            long start = System.nanoTime();
+            String result = hedging.call("getObject", context, () -> {
+                if (attempts.incrementAndGet() == 1) {
+                    Request request = new Request.Builder().url("http://localhost:" + server.getLocalPort() + "/bucket/object").build();
+                    try (Response response = client.newCall(request).execute()) {
+                        return "primary";
+                    }
+                }
+                // Let the primary request enter the blocking read
+                Thread.sleep(50);
+                return "hedge";
+            }, response -> events.add("discard:" + response));
+
+            assertThat(result).isEqualTo("hedge");
+            assertThat(events).containsExactly("hedge");
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(10));
+            acceptor.interrupt();
+        } finally {
+            client.dispatcher().executorService().shutdown();
+            client.connectionPool().evictAll();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright Jordan LEFEBURE © 2019.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.jlefebure.spring.boot.minio;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Request;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MinioHttpEventListenerTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger resolved = new AtomicInteger();
+    private final EventListener.Factory factory = MinioHttpEventListener.factory(() -> {
+        resolved.incrementAndGet();
+        return meterRegistry;
+    }, "minio.storage", "archive", "archive-bucket");
+
+    private DistributionSummary received(String method, String url) {
+        Call call = mock(Call.class);
+        when(call.request()).thenReturn(new Request.Builder().method(method, null).url(url).build());
+        EventListener listener = factory.create(call);
+        listener.callStart(call);
+        listener.responseBodyEnd(call, 42);
+        return meterRegistry.find("minio.storage.http.bytes.received").tag("target", "archive").summary();
+    }
+
+    @Test
+    void tagsPathStyleRequests() {
+        DistributionSummary summary = received("GET", "http://minio:9000/archive-bucket/path/to/object");
+
+        assertThat(summary).isNotNull();
+        assertThat(summary.getId().getTag("bucket")).isEqualTo("archive-bucket");
+        assertThat(summary.getId().getTag("operation")).isEqualTo("getObject");
+    }
+
+    @Test
+    void tagsVirtualHostStyleRequests() {
+        DistributionSummary summary = received("HEAD", "https://archive-bucket.s3.amazonaws.com/object");
+
+        assertThat(summary.getId().getTag("bucket")).isEqualTo("archive-bucket");
+        assertThat(summary.getId().getTag("operation")).isEqualTo("statObject");
+    }
+
+    @Test
+    void listsObjectsOfVirtualHostBucket() {
+        DistributionSummary summary = received("GET", "https://archive-bucket.s3.amazonaws.com/?prefix=a");
+
+        assertThat(summary.getId().getTag("operation")).isEqualTo("listObjects");
+    }
+
+    @Test
+    void resolvesMeterRegistryOnce() {
+        received("GET", "http://minio:9000/archive-bucket/a");
+        received("GET", "http://minio:9000/archive-bucket/b");
+
+        assertThat(resolved).hasValue(1);
+    }
+
+    @Test
+    void registersMetersOncePerOperation() {
+        AtomicInteger registrations = new AtomicInteger();
+        meterRegistry.config().meterFilter(new MeterFilter() {
+            @Override
+            public Meter.Id map(Meter.Id id) {
+                registrations.incrementAndGet();
+                return id;
+            }
+        });
+
+        received("GET", "http://minio:9000/archive-bucket/a");
+        DistributionSummary summary = received("GET", "http://minio:9000/archive-bucket/b");
+        received("HEAD", "http://minio:9000/archive-bucket/b");
+
+        assertThat(summary.count()).isEqualTo(2);
+        assertThat(registrations).hasValue(2);
+    }
+
+    @Test
+    void tagsRequestsWithoutBucket() {
+        DistributionSummary summary = received("GET", "http://minio:9000/");
+
+        assertThat(summary.getId().getTag("bucket")).isEqualTo("none");
+        assertThat(summary.getId().getTag("operation")).isEqualTo("listBuckets");
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright Jordan LEFEBURE © 2019.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.jlefebure.spring.boot.minio;
+
+import io.minio.StatObjectResponse;
+import io.minio.errors.ErrorResponseException;
+import io.minio.messages.ErrorResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class MinioMetadataCacheTest {
+
+    private MinioMetadataCache cache;
+    private AtomicInteger loads;
+    private StatObjectResponse response;
+
+    @BeforeEach
+    void setUp() {
+        cache = new MinioMetadataCache(new MinioConfigurationProperties());
+        loads = new AtomicInteger();
+        response = mock(StatObjectResponse.class);
+    }
+
+    private Callable<StatObjectResponse> loader() {
+        return () -> {
+            loads.incrementAndGet();
+            return response;
+        };
+    }
+
+    @Test
+    void cachesLoadedMetadata() throws Exception {
+        assertThat(cache.get("a", loader())).isSameAs(response);
+        assertThat(cache.get("a", loader())).isSameAs(response);
+
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void invalidateRemovesEntry() throws Exception {
+        cache.get("a", loader());
+        cache.invalidate("a");
+        cache.get("a", loader());
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void loadInvalidatedWhileRunningIsNotCached() throws Exception {
+        cache.get("a", () -> {
+            cache.invalidate("a");
+            return response;
+        });
+        cache.get("a", loader());
+
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void invalidationOfAnotherObjectKeepsLoad() throws Exception {
+        cache.get("a", () -> {
+            cache.invalidate("b");
+            return response;
+        });
+        cache.get("a", loader());
+
+        assertThat(loads).hasValue(0);
+    }
+
+    @Test
+    void invalidationBeforeLoadStartsKeepsLoad() throws Exception {
+        cache.invalidate("a");
+        cache.get("a", loader());
+        cache.get("a", loader());
+
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void loadRunningDuringInvalidateAllIsNotCached() throws Exception {
+        cache.get("a", () -> {
+            cache.invalidateAll();
+            return response;
+        });
+        cache.get("a", loader());
+
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void loadStartedAfterAnInvalidatedOneIsCached() throws Exception {
+        // A load invalidated while a second load of the same object starts: only the first one is discarded
+        cache.get("a", () -> {
+            cache.invalidate("a");
+            cache.get("a", loader());
+            return response;
+        });
+        cache.get("a", loader());
+
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void cachesMissingObjects() throws Exception {
+        ErrorResponseException missing = new ErrorResponseException(
+                new ErrorResponse("NoSuchKey", "Not found", "bucket", "a", null, null, null), null, null);
+        Callable<StatObjectResponse> loader = () -> {
+            loads.incrementAndGet();
+            throw missing;
+        };
+
+        assertThatThrownBy(() -> cache.get("a", loader)).isSameAs(missing);
+        assertThatThrownBy(() -> cache.get("a", loader)).isSameAs(missing);
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void failedLoadIsNotCached() throws Exception {
+        assertThatThrownBy(() -> cache.get("a", () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+        cache.get("a", loader());
+
+        assertThat(loads).hasValue(1);
+    }
+}
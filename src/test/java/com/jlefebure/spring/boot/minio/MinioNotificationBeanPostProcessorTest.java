@@ -0,0 +1,101 @@
+/*
+ * Copyright Jordan LEFEBURE © 2019.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.jlefebure.spring.boot.minio;
+
+import com.jlefebure.spring.boot.minio.notification.MinioNotification;
+import io.minio.messages.NotificationRecords;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MinioNotificationBeanPostProcessorTest {
+
+    private GenericApplicationContext context;
+    private MinioNotificationBeanPostProcessor postProcessor;
+
+    @BeforeEach
+    void setUp() {
+        context = new GenericApplicationContext();
+        postProcessor = new MinioNotificationBeanPostProcessor();
+        context.getBeanFactory().addBeanPostProcessor(postProcessor);
+        postProcessor.setBeanFactory(context.getBeanFactory());
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+
+    private static List<String> methods(List<MinioNotificationBeanPostProcessor.Handler> handlers) {
+        return handlers.stream()
+                .map(handler -> handler.getBean().getClass().getSimpleName() + "." + handler.getMethod().getName())
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    void handlersOfSingletonBeansAreDiscovered() {
+        context.registerBean("uploads", UploadHandler.class);
+        context.registerBean("other", Object.class);
+        context.refresh();
+
+        List<MinioNotificationBeanPostProcessor.Handler> handlers = postProcessor.start();
+
+        assertThat(methods(handlers)).containsExactlyInAnyOrder("UploadHandler.onCreated", "UploadHandler.onRemoved");
+        assertThat(handlers).allMatch(handler -> handler.getBean() == context.getBean("uploads"));
+    }
+
+    @Test
+    void handlersOfPrototypeBeansAreIgnored() {
+        context.registerBean("uploads", UploadHandler.class, definition -> definition.setScope(BeanDefinition.SCOPE_PROTOTYPE));
+        context.refresh();
+        context.getBean("uploads");
+
+        assertThat(postProcessor.start()).isEmpty();
+    }
+
+    @Test
+    void handlersOfBeansCreatedAfterStartAreIgnored() {
+        context.registerBean("uploads", UploadHandler.class, definition -> definition.setLazyInit(true));
+        context.refresh();
+
+        assertThat(postProcessor.start()).isEmpty();
+        context.getBean("uploads");
+
+        assertThat(postProcessor.start()).isEmpty();
+    }
+
+    static class UploadHandler {
+
+        @MinioNotification("s3:ObjectCreated:*")
+        public void onCreated(NotificationRecords records) {
+        }
+
+        @MinioNotification("s3:ObjectRemoved:*")
+        public void onRemoved(NotificationRecords records) {
+        }
+
+        public void notAHandler(NotificationRecords records) {
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright Jordan LEFEBURE © 2019.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.jlefebure.spring.boot.minio;
+
+import io.minio.messages.Event;
+import io.minio.messages.NotificationRecords;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MinioNotificationHandlerTest {
+
+    private MinioConfigurationProperties.Notification properties;
+    private Queue<Runnable> tasks;
+    private List<String> dropped;
+
+    @BeforeEach
+    void setUp() {
+        properties = new MinioConfigurationProperties().getNotification();
+        properties.setQueueCapacity(3);
+        tasks = new ArrayDeque<>();
+        dropped = new ArrayList<>();
+    }
+
+    public static class Recorder {
+        private final List<String> received = new ArrayList<>();
+
+        public void onEvent(Event event) {
+            received.add(event.objectName());
+        }
+
+        public void onEvents(List<Event> events) {
+            received.add(events.stream().map(Event::objectName).collect(Collectors.joining(",")));
+        }
+    }
+
+    private MinioNotificationHandler handler(Recorder recorder, String method) throws Exception {
+        MinioNotificationHandler.Listener listener = new MinioNotificationHandler.Listener() {
+            @Override
+            public void onRegistered(MinioNotificationHandler handler) {
+            }
+
+            @Override
+            public void onProcessed(MinioNotificationHandler handler, long lag) {
+            }
+
+            @Override
+            public void onDropped(MinioNotificationHandler handler) {
+                dropped.add(handler.getName());
+            }
+        };
+        return new MinioNotificationHandler(recorder,
+                Recorder.class.getMethod(method, method.equals("onEvents") ? List.class : Event.class),
+                properties, tasks::add, Collections.singletonList(listener));
+    }
+
+    private static void submit(MinioNotificationHandler handler, String... objectNames) throws InterruptedException {
+        List<Event> events = new ArrayList<>();
+        for (String objectName : objectNames) {
+            Event event = mock(Event.class);
+            when(event.objectName()).thenReturn(objectName);
+            events.add(event);
+        }
+        handler.submit(mock(NotificationRecords.class), events);
+    }
+
+    private void runTasks() {
+        while (!tasks.isEmpty()) {
+            tasks.poll().run();
+        }
+    }
+
+    @Test
+    void dropsOldestRecordsWhenFull() throws Exception {
+        properties.setOverflow(MinioConfigurationProperties.Notification.Overflow.DROP_OLDEST);
+        Recorder recorder = new Recorder();
+        MinioNotificationHandler handler = handler(recorder, "onEvent");
+
+        submit(handler, "a", "b", "c", "d", "e");
+        assertThat(handler.getQueueSize()).isEqualTo(3);
+        runTasks();
+
+        assertThat(recorder.received).containsExactly("c", "d", "e");
+        assertThat(dropped).hasSize(2);
+        assertThat(handler.getQueueSize()).isZero();
+    }
+
+    @Test
+    void dropsNewRecordsWhenFull() throws Exception {
+        properties.setOverflow(MinioConfigurationProperties.Notification.Overflow.DROP);
+        Recorder recorder = new Recorder();
+        MinioNotificationHandler handler = handler(recorder, "onEvent");
+
+        submit(handler, "a", "b", "c", "d");
+        runTasks();
+        submit(handler, "e");
+        runTasks();
+
+        assertThat(recorder.received).containsExactly("a", "b", "c", "e");
+        assertThat(dropped).hasSize(1);
+    }
+
+    @Test
+    @ExtendWith(OutputCaptureExtension.class)
+    void logsOneWarningForABurstOfDroppedRecords(CapturedOutput output) throws Exception {
+        properties.setOverflow(MinioConfigurationProperties.Notification.Overflow.DROP);
+        MinioNotificationHandler handler = handler(new Recorder(), "onEvent");
+
+        submit(handler, "a", "b", "c", "d", "e", "f");
+
+        assertThat(dropped).hasSize(3);
+        assertThat(output.getOut().split("Notification queue of Recorder.onEvent is full", -1)).hasSize(2);
+    }
+
+    @Test
+    void passesBatchesOfAtMostBatchSizeEvents() throws Exception {
+        properties.setQueueCapacity(10);
+        properties.setBatchSize(2);
+        Recorder recorder = new Recorder();
+        MinioNotificationHandler handler = handler(recorder, "onEvents");
+
+        submit(handler, "a", "b", "c", "d", "e");
+        runTasks();
+
+        assertThat(recorder.received).containsExactly("a,b", "c,d", "e");
+    }
+
+    @Test
+    void rejectsInvalidSignature() {
+        assertThatThrownBy(() -> new MinioNotificationHandler(new Object(), Object.class.getMethod("equals", Object.class),
+                properties, tasks::add, Collections.emptyList()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright Jordan LEFEBURE © 2019.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.jlefebure.spring.boot.minio;
+
+import io.minio.CloseableIterator;
+import io.minio.MinioClient;
+import io.minio.Result;
+import io.minio.messages.Item;
+import io.minio.messages.NotificationRecords;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MinioNotificationListenerTest {
+
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private final List<String> listingThreads = new CopyOnWriteArrayList<>();
+    private MinioClient minioClient;
+    private MinioService minioService;
+    private MinioNotificationRouter router;
+    private MinioNotificationListener listener;
+    private Thread thread;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        minioClient = mock(MinioClient.class);
+        minioService = mock(MinioService.class);
+        router = mock(MinioNotificationRouter.class);
+        when(router.getPrefix()).thenReturn("");
+        when(router.getSuffix()).thenReturn("");
+        when(router.getEvents()).thenReturn(new String[]{"s3:ObjectCreated:*"});
+
+        // The first connection fails, the second one stays open until the listener is stopped
+        @SuppressWarnings("unchecked")
+        CloseableIterator<Result<NotificationRecords>> records = mock(CloseableIterator.class);
+        when(records.hasNext()).thenAnswer(invocation -> {
+            stopped.await();
+            return false;
+        });
+        when(minioClient.listenBucketNotification(any()))
+                .thenThrow(new IOException("connection reset"))
+                .thenReturn(records);
+
+        MinioConfigurationProperties.Notification properties = new MinioConfigurationProperties().getNotification();
+        properties.setReconnectInitialBackoff(Duration.ofMillis(1));
+        properties.setReconnectMaxBackoff(Duration.ofMillis(1));
+        properties.setReconcile(true);
+        listener = new MinioNotificationListener(minioClient, minioService, "bucket", router, properties);
+        thread = new Thread(listener, "listener");
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        listener.stop();
+        stopped.countDown();
+        thread.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    private static Item item(String name) {
+        Item item = mock(Item.class);
+        when(item.objectName()).thenReturn(name);
+        when(item.lastModified()).thenReturn(ZonedDateTime.now(ZoneOffset.UTC).plusHours(1));
+        return item;
+    }
+
+    private Stream<Item> listing(Item... items) {
+        listingThreads.add(Thread.currentThread().getName());
+        return Stream.of(items);
+    }
+
+    @Test
+    void reconciliationResumesAfterLastListedObject() throws Exception {
+        Item a = item("a");
+        Item b = item("b");
+        // The first listing fails after the first object
+        Iterator<Item> failing = new Iterator<Item>() {
+            private boolean first = true;
+
+            @Override
+            public boolean hasNext() {
+                if (first) {
+                    return true;
+                }
+                throw new MinioFetchException("Error while fetching files in Minio", new IOException("connection reset"));
+            }
+
+            @Override
+            public Item next() {
+                first = false;
+                return a;
+            }
+        };
+        doAnswer(invocation -> {
+            listingThreads.add(Thread.currentThread().getName());
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(failing, Spliterator.ORDERED), false);
+        }).when(minioService).stream(eq(Paths.get("")), eq(true), isNull(), anyInt());
+        doAnswer(invocation -> listing(b)).when(minioService).stream(eq(Paths.get("")), eq(true), eq("a"), anyInt());
+
+        thread.start();
+
+        verify(router, timeout(5000).times(2)).dispatch(any());
+        verify(minioService).stream(eq(Paths.get("")), eq(true), eq("a"), anyInt());
+        // The listening thread is still waiting for live notifications meanwhile
+        assertThat(listingThreads).containsOnly("minio-notification-reconcile-bucket");
+        assertThat(thread.isAlive()).isTrue();
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright Jordan LEFEBURE © 2019.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.jlefebure.spring.boot.minio;
+
+import io.minio.messages.Event;
+import io.minio.messages.EventType;
+import io.minio.messages.NotificationRecords;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MinioNotificationRouterTest {
+
+    private MinioConfigurationProperties.Notification properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new MinioConfigurationProperties().getNotification();
+    }
+
+    public static class Recorder {
+        private final List<String> received = new ArrayList<>();
+
+        public void onEvent(Event event) {
+            received.add(event.objectName());
+        }
+
+        public void onEvents(List<Event> events) {
+            received.add(events.stream().map(Event::objectName).collect(Collectors.joining(",")));
+        }
+    }
+
+    private MinioNotificationRouter.Route route(Recorder recorder, String method, String prefix, String suffix, String... events) throws Exception {
+        MinioNotificationHandler handler = new MinioNotificationHandler(recorder,
+                Recorder.class.getMethod(method, method.equals("onEvents") ? List.class : Event.class),
+                properties, Runnable::run, Collections.emptyList());
+        return new MinioNotificationRouter.Route(handler, events, prefix, suffix);
+    }
+
+    private static Event event(EventType type, String objectName) {
+        Event event = mock(Event.class);
+        when(event.eventType()).thenReturn(type);
+        when(event.objectName()).thenReturn(objectName);
+        return event;
+    }
+
+    private static NotificationRecords records(Event... events) {
+        NotificationRecords records = mock(NotificationRecords.class);
+        when(records.events()).thenReturn(Arrays.asList(events));
+        return records;
+    }
+
+    @Test
+    void routesByPrefixAndSuffix() throws Exception {
+        Recorder images = new Recorder();
+        Recorder texts = new Recorder();
+        MinioNotificationRouter router = new MinioNotificationRouter(Arrays.asList(
+                route(images, "onEvent", "images/", ".jpg", "s3:ObjectCreated:*"),
+                route(texts, "onEvent", "", ".txt", "s3:ObjectCreated:*")));
+
+        router.dispatch(records(event(EventType.OBJECT_CREATED_PUT, "images/cat.jpg")));
+        router.dispatch(records(event(EventType.OBJECT_CREATED_PUT, "images/notes.txt")));
+        router.dispatch(records(event(EventType.OBJECT_CREATED_PUT, "docs/cat.jpg")));
+
+        assertThat(images.received).containsExactly("images/cat.jpg");
+        assertThat(texts.received).containsExactly("images/notes.txt");
+    }
+
+    @Test
+    void expandsEventPatterns() throws Exception {
+        Recorder created = new Recorder();
+        Recorder removed = new Recorder();
+        MinioNotificationRouter router = new MinioNotificationRouter(Arrays.asList(
+                route(created, "onEvent", "", "", "s3:ObjectCreated:*"),
+                route(removed, "onEvent", "", "", "s3:ObjectRemoved:Delete")));
+
+        router.dispatch(records(event(EventType.OBJECT_CREATED_COPY, "a")));
+        router.dispatch(records(event(EventType.OBJECT_REMOVED_DELETE, "b")));
+        router.dispatch(records(event(EventType.OBJECT_ACCESSED_GET, "c")));
+
+        assertThat(created.received).containsExactly("a");
+        assertThat(removed.received).containsExactly("b");
+    }
+
+    @Test
+    void matchesDecodedObjectNames() throws Exception {
+        Recorder recorder = new Recorder();
+        MinioNotificationRouter router = new MinioNotificationRouter(Collections.singletonList(
+                route(recorder, "onEvent", "my images/", ".jpg", "s3:ObjectCreated:Put")));
+
+        router.dispatch(records(event(EventType.OBJECT_CREATED_PUT, "my+images%2Fcat.jpg")));
+
+        assertThat(recorder.received).containsExactly("my+images%2Fcat.jpg");
+    }
+
+    @Test
+    void submitsOnlyMatchingEventsOfRecords() throws Exception {
+        Recorder recorder = new Recorder();
+        MinioNotificationRouter router = new MinioNotificationRouter(Collections.singletonList(
+                route(recorder, "onEvents", "logs/", "", "s3:ObjectCreated:*")));
+
+        router.dispatch(records(
+                event(EventType.OBJECT_CREATED_PUT, "logs/1"),
+                event(EventType.OBJECT_CREATED_PUT, "data/2"),
+                event(EventType.OBJECT_CREATED_PUT, "logs/3")));
+
+        assertThat(recorder.received).containsExactly("logs/1,logs/3");
+    }
+
+    @Test
+    void listensToUnionOfEventsWithCommonFilters() throws Exception {
+        MinioNotificationRouter router = new MinioNotificationRouter(Arrays.asList(
+                route(new Recorder(), "onEvent", "data/images/", ".jpg", "s3:ObjectCreated:*"),
+                route(new Recorder(), "onEvent", "data/videos/", ".mp4", "s3:ObjectRemoved:*", "s3:ObjectCreated:*")));
+
+        assertThat(router.getEvents()).containsExactly("s3:ObjectCreated:*", "s3:ObjectRemoved:*");
+        assertThat(router.getPrefix()).isEqualTo("data/");
+        assertThat(router.getSuffix()).isEmpty();
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright Jordan LEFEBURE © 2019.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.jlefebure.spring.boot.minio;
+
+import io.minio.errors.ErrorResponseException;
+import io.minio.messages.ErrorResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.nio.file.NoSuchFileException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MinioRetryPolicyTest {
+
+    private MinioConfigurationProperties.Retry properties;
+    private AtomicInteger retries;
+    private MinioInstrumentation.Context context;
+
+    @BeforeEach
+    void setUp() {
+        properties = new MinioConfigurationProperties().getRetry();
+        properties.setEnabled(true);
+        properties.setInitialBackoff(Duration.ofMillis(1));
+        properties.setMaxBackoff(Duration.ofMillis(1));
+        retries = new AtomicInteger();
+        context = new MinioInstrumentation.Context() {
+            @Override
+            public void retry() {
+                retries.incrementAndGet();
+            }
+
+            @Override
+            public void stop(Throwable error) {
+            }
+        };
+    }
+
+    private static ErrorResponseException error(String code) {
+        return new ErrorResponseException(new ErrorResponse(code, "message", "bucket", "object", "resource", "request", "host"), null, null);
+    }
+
+    @Test
+    void retriesTransientErrorsUntilSuccess() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = new MinioRetryPolicy(properties).call(context, () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new IOException("Connection reset");
+            }
+            return "ok";
+        });
+
+        assertThat(result).isEqualTo("ok");
+        assertThat(attempts).hasValue(3);
+        assertThat(retries).hasValue(2);
+    }
+
+    @Test
+    void stopsAfterMaxAttempts() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> new MinioRetryPolicy(properties).<String>call(context, () -> {
+            attempts.incrementAndGet();
+            throw error("SlowDown");
+        })).isInstanceOf(ErrorResponseException.class);
+        assertThat(attempts).hasValue(3);
+    }
+
+    @Test
+    void doesNotRetryPermanentErrors() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> new MinioRetryPolicy(properties).<String>call(context, () -> {
+            attempts.incrementAndGet();
+            throw error("NoSuchKey");
+        })).isInstanceOf(ErrorResponseException.class);
+        assertThat(attempts).hasValue(1);
+        assertThat(retries).hasValue(0);
+    }
+
+    @Test
+    void stopsRetryingWhenBudgetIsExhausted() {
+        properties.setMaxAttempts(100);
+        properties.setMinRetriesPerSecond(0);
+        properties.setBudgetRatio(2);
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> new MinioRetryPolicy(properties).<String>call(context, () -> {
+            attempts.incrementAndGet();
+            throw new IOException("Connection reset");
+        })).isInstanceOf(IOException.class);
+        // The request deposited 2 retries
+        assertThat(attempts).hasValue(3);
+    }
+
+    @Test
+    void classifiesErrors() {
+        assertThat(MinioRetryPolicy.isRetryable(new SocketTimeoutException())).isTrue();
+        assertThat(MinioRetryPolicy.isRetryable(new NoSuchFileException("file"))).isFalse();
+        assertThat(MinioRetryPolicy.isRetryable(error("InternalError"))).isTrue();
+        assertThat(MinioRetryPolicy.isRetryable(error("AccessDenied"))).isFalse();
+        // A skewed clock is not fixed by retrying the same signed request
+        assertThat(MinioRetryPolicy.isRetryable(error("RequestTimeTooSkewed"))).isFalse();
+    }
+}
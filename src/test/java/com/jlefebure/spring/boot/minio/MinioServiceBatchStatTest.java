@@ -0,0 +1,104 @@
+/*
+ * Copyright Jordan LEFEBURE © 2019.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.jlefebure.spring.boot.minio;
+
+import io.minio.MinioClient;
+import io.minio.StatObjectArgs;
+import io.minio.StatObjectResponse;
+import okhttp3.Headers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MinioServiceBatchStatTest {
+
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+    private MinioClient minioClient;
+    private MinioConfigurationProperties properties;
+    private MinioService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        minioClient = mock(MinioClient.class);
+        properties = new MinioConfigurationProperties();
+        properties.getStat().setMaxInFlight(2);
+        service = new MinioService(minioClient, properties, MinioTargets.DEFAULT, "bucket", null, null, null, MinioInstrumentation.NOOP);
+
+        when(minioClient.statObject(any())).thenAnswer(invocation -> {
+            StatObjectArgs args = invocation.getArgument(0);
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+                if (args.object().equals("missing")) {
+                    throw new IllegalStateException("no such object");
+                }
+                return new StatObjectResponse(Headers.of("ETag", "\"" + args.object() + "\"", "Content-Length", "1",
+                        "Last-Modified", "Tue, 15 Nov 1994 08:12:31 GMT"), "bucket", "", args.object());
+            } finally {
+                running.decrementAndGet();
+            }
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void statsAtMostMaxInFlightObjectsAtOnce() {
+        List<Path> paths = Arrays.asList(Paths.get("a"), Paths.get("b"), Paths.get("c"), Paths.get("d"), Paths.get("e"));
+
+        MinioBatchResult<StatObjectResponse> result = service.getMetadataBatch(paths);
+
+        assertThat(result.isSuccessful()).isTrue();
+        assertThat(result.getResults()).containsOnlyKeys(paths);
+        assertThat(result.getResults().get(Paths.get("c")).etag()).isEqualTo("c");
+        assertThat(maxRunning.get()).isBetween(1, 2);
+    }
+
+    @Test
+    void failedObjectDoesNotAbortBatch() {
+        MinioBatchResult<StatObjectResponse> result = service.getMetadataBatch(
+                Arrays.asList(Paths.get("a"), Paths.get("missing"), Paths.get("b")));
+
+        assertThat(result.isSuccessful()).isFalse();
+        assertThat(result.getResults()).containsOnlyKeys(Paths.get("a"), Paths.get("b"));
+        assertThat(result.getErrors()).containsOnlyKeys(Paths.get("missing"));
+        assertThat(result.getErrors().get(Paths.get("missing"))).hasMessage("no such object");
+    }
+
+    @Test
+    void getMetadataThrowsFirstError() {
+        assertThatThrownBy(() -> service.getMetadata(Arrays.asList(Paths.get("a"), Paths.get("missing"))))
+                .isInstanceOf(MinioFetchException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright Jordan LEFEBURE © 2019.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.jlefebure.spring.boot.minio;
+
+import io.minio.messages.Contents;
+import io.minio.messages.Item;
+import io.minio.messages.ListBucketResultV2;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class MinioServiceListingTest {
+
+    private MinioMultipartClient minioClient;
+    private MinioConfigurationProperties properties;
+    private List<String> events;
+
+    @BeforeEach
+    void setUp() {
+        minioClient = mock(MinioMultipartClient.class);
+        properties = new MinioConfigurationProperties();
+        properties.setBucket("bucket");
+        properties.getRetry().setEnabled(true);
+        properties.getRetry().setInitialBackoff(Duration.ofMillis(1));
+        properties.getRetry().setMaxBackoff(Duration.ofMillis(1));
+        events = new ArrayList<>();
+    }
+
+    private MinioService service() {
+        MinioInstrumentation instrumentation = (operation, bucket, object) -> {
+            events.add("start:" + operation);
+            return new MinioInstrumentation.Context() {
+                @Override
+                public void retry() {
+                    events.add("retry");
+                }
+
+                @Override
+                public void stop(Throwable error) {
+                    events.add(error == null ? "stop" : "stop:" + error.getClass().getSimpleName());
+                }
+            };
+        };
+        return new MinioService(minioClient, properties, MinioTargets.DEFAULT, "bucket", null, null, null, instrumentation);
+    }
+
+    private static ListBucketResultV2 page(String nextContinuationToken, String... names) {
+        ListBucketResultV2 page = mock(ListBucketResultV2.class);
+        List<Contents> contents = new ArrayList<>();
+        for (String name : names) {
+            contents.add(new Contents(name));
+        }
+        when(page.contents()).thenReturn(contents);
+        when(page.commonPrefixes()).thenReturn(Collections.emptyList());
+        when(page.isTruncated()).thenReturn(nextContinuationToken != null);
+        when(page.nextContinuationToken()).thenReturn(nextContinuationToken);
+        return page;
+    }
+
+    private void pages(ListBucketResultV2 first, ListBucketResultV2... others) throws Exception {
+        when(minioClient.list(eq("bucket"), any(), anyBoolean(), any(), anyInt(), any())).thenReturn(first, others);
+    }
+
+    @Test
+    void listingIsOneOperation() throws Exception {
+        pages(page(null, "a", "b"));
+
+        List<String> names = service().list(Paths.get("prefix")).stream().map(Item::objectName).collect(Collectors.toList());
+
+        assertThat(names).containsExactly("a", "b");
+        assertThat(events).containsExactly("start:listObjects", "stop");
+    }
+
+    @Test
+    void pagesAreFetchedWithContinuationToken() throws Exception {
+        // The server may return less objects than requested, pages are followed with their token only
+        pages(page("t1", "a"), page("t2", "b", "c"), page(null, "d"));
+
+        List<String> names;
+        try (Stream<Item> stream = service().stream(Paths.get("prefix"), true, null, 2)) {
+            names = stream.map(Item::objectName).collect(Collectors.toList());
+        }
+
+        assertThat(names).containsExactly("a", "b", "c", "d");
+        verify(minioClient).list("bucket", "prefix", true, null, 2, null);
+        verify(minioClient).list("bucket", "prefix", true, null, 2, "t1");
+        verify(minioClient).list("bucket", "prefix", true, null, 2, "t2");
+    }
+
+    @Test
+    void failedPageIsRequestedAgain() throws Exception {
+        ListBucketResultV2 first = page("t1", "a", "b");
+        ListBucketResultV2 second = page(null, "c");
+        when(minioClient.list(eq("bucket"), any(), anyBoolean(), any(), anyInt(), isNull())).thenReturn(first);
+        when(minioClient.list(eq("bucket"), any(), anyBoolean(), any(), anyInt(), eq("t1")))
+                .thenThrow(new IOException("connection reset"))
+                .thenReturn(second);
+
+        List<String> names;
+        try (Stream<Item> stream = service().stream(Paths.get("prefix"), true, "start", 2)) {
+            names = stream.map(Item::objectName).collect(Collectors.toList());
+        }
+
+        assertThat(names).containsExactly("a", "b", "c");
+        assertThat(events).containsExactly("start:listObjects", "retry", "stop");
+        verify(minioClient, times(2)).list("bucket", "prefix", true, "start", 2, "t1");
+    }
+
+    @Test
+    void iteratorStartsOperationWithFirstPage() throws Exception {
+        pages(page(null, "a"));
+
+        Iterator<Item> iterator = service().iterator(Paths.get("prefix"), true, null, 1000);
+        assertThat(events).isEmpty();
+        verifyNoInteractions(minioClient);
+        iterator.next();
+        assertThat(events).containsExactly("start:listObjects");
+        assertThat(iterator.hasNext()).isFalse();
+
+        assertThat(events).containsExactly("start:listObjects", "stop");
+    }
+
+    @Test
+    void iteratorStopsOperationOnError() throws Exception {
+        properties.getRetry().setEnabled(false);
+        when(minioClient.list(any(), any(), anyBoolean(), any(), anyInt(), any())).thenThrow(new IOException("connection reset"));
+
+        Iterator<Item> iterator = service().iterator(Paths.get("prefix"), true, null, 1000);
+
+        assertThatThrownBy(iterator::hasNext).isInstanceOf(MinioFetchException.class);
+        assertThat(events).containsExactly("start:listObjects", "stop:IOException");
+    }
+
+    @Test
+    void closingStreamStopsOperation() throws Exception {
+        pages(page("t1", "a", "b"));
+
+        try (Stream<Item> stream = service().stream(Paths.get("prefix"), true)) {
+            assertThat(stream.findFirst()).isPresent();
+            assertThat(events).containsExactly("start:listObjects");
+        }
+
+        assertThat(events).containsExactly("start:listObjects", "stop");
+        verify(minioClient, times(1)).list(any(), any(), anyBoolean(), any(), anyInt(), any());
+    }
+
+    @Test
+    void closingUnusedStreamStartsNoOperation() {
+        try (Stream<Item> stream = service().stream(Paths.get("prefix"), true)) {
+            assertThat(stream).isNotNull();
+        }
+
+        assertThat(events).isEmpty();
+    }
+}
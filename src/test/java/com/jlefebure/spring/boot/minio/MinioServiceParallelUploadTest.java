@@ -0,0 +1,106 @@
+/*
+ * Copyright Jordan LEFEBURE © 2019.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.jlefebure.spring.boot.minio;
+
+import io.minio.messages.Part;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.util.unit.DataSize;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MinioServiceParallelUploadTest {
+
+    private static final int PART_SIZE = 5 * 1024 * 1024;
+
+    @TempDir
+    Path directory;
+
+    private MinioMultipartClient minioClient;
+    private MinioService service;
+    private File file;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        minioClient = mock(MinioMultipartClient.class);
+        MinioConfigurationProperties properties = new MinioConfigurationProperties();
+        properties.getUpload().setPartSize(DataSize.ofBytes(PART_SIZE));
+        service = new MinioService(minioClient, properties, MinioTargets.DEFAULT, "bucket", null, null, null, MinioInstrumentation.NOOP);
+
+        // Two full parts and a last smaller one
+        file = Files.write(directory.resolve("file.bin"), new byte[2 * PART_SIZE + 1024]).toFile();
+        when(minioClient.initiate(eq("bucket"), eq("object"), any(), any())).thenReturn("upload-id");
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void completesUploadWithSortedParts() throws Exception {
+        when(minioClient.upload(eq("bucket"), eq("object"), eq("upload-id"), anyInt(), any(), anyInt()))
+                .thenAnswer(invocation -> new Part(invocation.getArgument(3), "etag-" + invocation.getArgument(3)));
+
+        service.upload(Paths.get("object"), file);
+
+        verify(minioClient).upload(eq("bucket"), eq("object"), eq("upload-id"), eq(3), any(), eq(1024));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Part>> parts = ArgumentCaptor.forClass(List.class);
+        verify(minioClient).complete(eq("bucket"), eq("object"), eq("upload-id"), parts.capture());
+        assertThat(parts.getValue().stream().map(Part::partNumber).collect(Collectors.toList())).containsExactly(1, 2, 3);
+        verify(minioClient, never()).abort(any(), any(), any());
+    }
+
+    @Test
+    void failingPartAbortsUpload() throws Exception {
+        when(minioClient.upload(eq("bucket"), eq("object"), eq("upload-id"), anyInt(), any(), anyInt()))
+                .thenAnswer(invocation -> {
+                    int partNumber = invocation.getArgument(3);
+                    if (partNumber == 2) {
+                        throw new IllegalStateException("part rejected");
+                    }
+                    return new Part(partNumber, "etag-" + partNumber);
+                });
+
+        assertThatThrownBy(() -> service.upload(Paths.get("object"), file))
+                .isInstanceOf(MinioException.class)
+                .hasRootCauseMessage("part rejected");
+
+        verify(minioClient).abort("bucket", "object", "upload-id");
+        verify(minioClient, never()).complete(any(), any(), any(), anyList());
+    }
+}
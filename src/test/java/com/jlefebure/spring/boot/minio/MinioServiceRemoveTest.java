@@ -0,0 +1,124 @@
+/*
+ * Copyright Jordan LEFEBURE © 2019.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.jlefebure.spring.boot.minio;
+
+import io.minio.MinioClient;
+import io.minio.RemoveObjectsArgs;
+import io.minio.Result;
+import io.minio.messages.DeleteError;
+import io.minio.messages.DeleteObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MinioServiceRemoveTest {
+
+    private final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+    private MinioClient minioClient;
+    private MinioService service;
+
+    @BeforeEach
+    void setUp() {
+        minioClient = mock(MinioClient.class);
+        MinioConfigurationProperties properties = new MinioConfigurationProperties();
+        properties.getRemove().setBatchSize(2);
+        service = new MinioService(minioClient, properties, MinioTargets.DEFAULT, "bucket", null, null, null, MinioInstrumentation.NOOP);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    private static List<Path> paths(String... names) {
+        List<Path> paths = new ArrayList<>();
+        for (String name : names) {
+            paths.add(Paths.get(name));
+        }
+        return paths;
+    }
+
+    private int size(RemoveObjectsArgs args) {
+        int size = 0;
+        for (DeleteObject ignored : args.objects()) {
+            size++;
+        }
+        batchSizes.add(size);
+        return size;
+    }
+
+    @Test
+    void removesObjectsByBatches() {
+        when(minioClient.removeObjects(any())).thenAnswer(invocation -> {
+            size(invocation.getArgument(0));
+            return Collections.emptyList();
+        });
+
+        Map<Path, Exception> errors = service.remove(paths("a", "b", "c", "d", "e"));
+
+        assertThat(errors).isEmpty();
+        assertThat(batchSizes).containsExactlyInAnyOrder(2, 2, 1);
+    }
+
+    @Test
+    void reportsErrorsOfEachObject() {
+        DeleteError denied = new DeleteError() {
+            {
+                code = "AccessDenied";
+                message = "Access Denied";
+                objectName = "b";
+            }
+        };
+        when(minioClient.removeObjects(any())).thenAnswer(invocation -> {
+            size(invocation.getArgument(0));
+            return Collections.singletonList(new Result<>(denied));
+        }).thenReturn(Collections.emptyList());
+
+        Map<Path, Exception> errors = service.remove(paths("a", "b"));
+
+        assertThat(errors).containsOnlyKeys(Paths.get("b"));
+        assertThat(errors.get(Paths.get("b"))).hasMessageContaining("AccessDenied");
+    }
+
+    @Test
+    void failedBatchReportsAllItsObjects() {
+        when(minioClient.removeObjects(any())).thenAnswer(invocation -> {
+            RemoveObjectsArgs args = invocation.getArgument(0);
+            if (size(args) == 1) {
+                throw new IllegalStateException("batch rejected");
+            }
+            return Collections.emptyList();
+        });
+
+        Map<Path, Exception> errors = service.remove(paths("a", "b", "c"));
+
+        assertThat(errors).containsOnlyKeys(Paths.get("c"));
+        assertThat(errors.get(Paths.get("c"))).hasMessage("batch rejected");
+    }
+}
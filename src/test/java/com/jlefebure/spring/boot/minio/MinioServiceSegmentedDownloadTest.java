@@ -0,0 +1,116 @@
+/*
+ * Copyright Jordan LEFEBURE © 2019.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.jlefebure.spring.boot.minio;
+
+import io.minio.GetObjectArgs;
+import io.minio.GetObjectResponse;
+import io.minio.MinioClient;
+import io.minio.StatObjectResponse;
+import okhttp3.Headers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MinioServiceSegmentedDownloadTest {
+
+    private static final String CONTENT = "0123456789";
+
+    @TempDir
+    Path directory;
+
+    private MinioClient minioClient;
+    private MinioService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        minioClient = mock(MinioClient.class);
+        MinioConfigurationProperties properties = new MinioConfigurationProperties();
+        properties.getDownload().setSegmented(true);
+        properties.getDownload().setSegmentSize(DataSize.ofBytes(4));
+        service = new MinioService(minioClient, properties, MinioTargets.DEFAULT, "bucket", null, null, null, MinioInstrumentation.NOOP);
+
+        when(minioClient.statObject(any())).thenReturn(new StatObjectResponse(Headers.of(
+                "ETag", "\"etag\"",
+                "Content-Length", String.valueOf(CONTENT.length()),
+                "Last-Modified", "Tue, 15 Nov 1994 08:12:31 GMT"), "bucket", "", "object"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    private static GetObjectResponse segment(GetObjectArgs args) {
+        int offset = args.offset().intValue();
+        byte[] bytes = CONTENT.substring(offset, offset + args.length().intValue()).getBytes(StandardCharsets.UTF_8);
+        return new GetObjectResponse(Headers.of(), "bucket", "", "object", new ByteArrayInputStream(bytes));
+    }
+
+    private long partFiles() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".part.minio")).count();
+        }
+    }
+
+    @Test
+    void downloadsSegmentsAtTheirPosition() throws Exception {
+        when(minioClient.getObject(any())).thenAnswer(invocation -> segment(invocation.getArgument(0)));
+        Path target = directory.resolve("object");
+
+        service.getAndSave(Paths.get("object"), target.toString());
+
+        assertThat(new String(Files.readAllBytes(target), StandardCharsets.UTF_8)).isEqualTo(CONTENT);
+        verify(minioClient, times(3)).getObject(any());
+        assertThat(partFiles()).isZero();
+    }
+
+    @Test
+    void failedSegmentLeavesNoPartialFile() throws Exception {
+        when(minioClient.getObject(any())).thenAnswer(invocation -> {
+            GetObjectArgs args = invocation.getArgument(0);
+            if (args.offset() == 4) {
+                throw new IllegalStateException("segment rejected");
+            }
+            return segment(args);
+        });
+        Path target = directory.resolve("object");
+
+        assertThatThrownBy(() -> service.getAndSave(Paths.get("object"), target.toString()))
+                .isInstanceOf(MinioException.class)
+                .hasRootCauseMessage("segment rejected");
+
+        assertThat(target).doesNotExist();
+        assertThat(partFiles()).isZero();
+    }
+}
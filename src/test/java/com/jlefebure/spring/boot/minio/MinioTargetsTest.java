@@ -0,0 +1,109 @@
+/*
+ * Copyright Jordan LEFEBURE © 2019.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.jlefebure.spring.boot.minio;
+
+import okhttp3.Protocol;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class MinioTargetsTest {
+
+    private MinioConfigurationProperties properties;
+    private StaticListableBeanFactory beanFactory;
+    private MinioService defaultService;
+    private MinioTargets targets;
+
+    @BeforeEach
+    void setUp() {
+        properties = new MinioConfigurationProperties();
+        properties.setBucket("bucket");
+        properties.setCheckBucket(false);
+        beanFactory = new StaticListableBeanFactory();
+        defaultService = new MinioService(mock(MinioMultipartClient.class), properties, MinioTargets.DEFAULT, "bucket",
+                null, null, null, MinioInstrumentation.NOOP);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (targets != null) {
+            targets.shutdown();
+        }
+        defaultService.shutdown();
+    }
+
+    private MinioTargets targets() throws Exception {
+        targets = new MinioTargets(properties, defaultService, beanFactory.getBeanProvider(MinioHttpClientCustomizer.class),
+                null, beanFactory.getBeanProvider(MinioInstrumentation.class));
+        return targets;
+    }
+
+    private MinioConfigurationProperties.Target target(String name, String bucket) {
+        MinioConfigurationProperties.Target target = new MinioConfigurationProperties.Target();
+        target.setBucket(bucket);
+        properties.getTargets().put(name, target);
+        return target;
+    }
+
+    @Test
+    void defaultNameIsReserved() {
+        target(MinioTargets.DEFAULT, "other");
+
+        assertThatThrownBy(this::targets)
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("spring.minio.targets.default is reserved for spring.minio.bucket");
+    }
+
+    @Test
+    void bucketIsRequired() {
+        target("archive", null);
+
+        assertThatThrownBy(this::targets)
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("spring.minio.targets.archive.bucket is required");
+    }
+
+    @Test
+    void eachTargetHasItsOwnClients() throws Exception {
+        target("archive", "archive-bucket").getHttp().setHttp2(true);
+        target("backup", "backup-bucket");
+
+        MinioTargets targets = targets();
+
+        assertThat(targets.getNames()).containsExactly("archive", "backup");
+        assertThat(targets.getService("archive")).isNotSameAs(targets.getService("backup"));
+        assertThat(targets.getClient("archive")).isNotSameAs(targets.getClient("backup"));
+        assertThat(targets.getHttpClient("archive").protocols()).containsExactly(Protocol.HTTP_2, Protocol.HTTP_1_1);
+        assertThat(targets.getHttpClient("backup").protocols()).containsExactly(Protocol.HTTP_1_1);
+        assertThat(targets.getHttpClient("archive").connectionPool()).isNotSameAs(targets.getHttpClient("backup").connectionPool());
+    }
+
+    @Test
+    void unknownTargetIsRejected() throws Exception {
+        MinioTargets targets = targets();
+
+        assertThat(targets.getNames()).isEmpty();
+        assertThatThrownBy(() -> targets.getService("archive"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unknown Minio target archive");
+    }
+}
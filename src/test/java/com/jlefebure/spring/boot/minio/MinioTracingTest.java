@@ -0,0 +1,147 @@
+/*
+ * Copyright Jordan LEFEBURE © 2019.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.jlefebure.spring.boot.minio;
+
+import brave.ScopedSpan;
+import brave.Tracing;
+import brave.handler.MutableSpan;
+import brave.handler.SpanHandler;
+import brave.propagation.TraceContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MinioTracingTest {
+
+    private List<MutableSpan> spans;
+    private Tracing tracing;
+    private StaticListableBeanFactory beanFactory;
+
+    @BeforeEach
+    void setUp() {
+        spans = new CopyOnWriteArrayList<>();
+        tracing = Tracing.newBuilder()
+                .addSpanHandler(new SpanHandler() {
+                    @Override
+                    public boolean end(TraceContext context, MutableSpan span, Cause cause) {
+                        spans.add(span);
+                        return true;
+                    }
+                })
+                .build();
+        beanFactory = new StaticListableBeanFactory();
+    }
+
+    @AfterEach
+    void tearDown() {
+        tracing.close();
+    }
+
+    private MinioTracing minioTracing() {
+        return new MinioTracing(beanFactory.getBeanProvider(Tracing.class));
+    }
+
+    @Test
+    void operationIsTracedAsChildOfCurrentSpan() {
+        beanFactory.addBean("tracing", tracing);
+        MinioTracing minioTracing = minioTracing();
+
+        ScopedSpan parent = tracing.tracer().startScopedSpan("parent");
+        try {
+            MinioInstrumentation.Context context = minioTracing.start("putObject", "bucket", "dir/sub/file.txt");
+            context.bytes(10);
+            context.bytes(5);
+            context.parts(3);
+            context.retry();
+            context.hedge();
+            context.stop(null);
+        } finally {
+            parent.finish();
+        }
+
+        MutableSpan span = spans.get(0);
+        assertThat(span.name()).isEqualTo("putObject");
+        assertThat(span.remoteServiceName()).isEqualTo("minio");
+        assertThat(span.parentId()).isEqualTo(parent.context().spanIdString());
+        assertThat(span.tags())
+                .containsEntry("minio.bucket", "bucket")
+                .containsEntry("minio.prefix", "dir/sub/")
+                .containsEntry("minio.size", "15")
+                .containsEntry("minio.parts", "3")
+                .containsEntry("minio.retries", "1")
+                .containsEntry("minio.hedged", "true");
+    }
+
+    @Test
+    void unknownValuesAreNotTagged() {
+        beanFactory.addBean("tracing", tracing);
+
+        minioTracing().start("statObject", "bucket", "file.txt").stop(null);
+
+        assertThat(spans.get(0).tags())
+                .containsEntry("minio.prefix", "")
+                .doesNotContainKeys("minio.size", "minio.parts", "minio.retries", "minio.hedged");
+    }
+
+    @Test
+    void errorIsRecorded() {
+        beanFactory.addBean("tracing", tracing);
+        IllegalStateException error = new IllegalStateException("boom");
+
+        minioTracing().start("getObject", "bucket", "file.txt").stop(error);
+
+        assertThat(spans.get(0).error()).isSameAs(error);
+    }
+
+    @Test
+    void tasksRunInScopeOfSpan() throws Exception {
+        beanFactory.addBean("tracing", tracing);
+
+        MinioInstrumentation.Context context = minioTracing().start("putObject", "bucket", "file.txt");
+        TraceContext current = context.wrap(() -> tracing.currentTraceContext().get()).call();
+        context.stop(null);
+
+        assertThat(current).isNotNull();
+        assertThat(current.spanIdString()).isEqualTo(spans.get(0).id());
+        assertThat(tracing.currentTraceContext().get()).isNull();
+    }
+
+    @Test
+    void tracingIsResolvedOnFirstOperation() {
+        MinioTracing minioTracing = minioTracing();
+        beanFactory.addBean("tracing", tracing);
+
+        minioTracing.start("getObject", "bucket", "file.txt").stop(null);
+
+        assertThat(spans).hasSize(1);
+    }
+
+    @Test
+    void nothingIsTracedWithoutTracer() throws Exception {
+        MinioTracing minioTracing = minioTracing();
+
+        assertThat(minioTracing.start("getObject", "bucket", "file.txt")).isSameAs(MinioInstrumentation.Context.NOOP);
+        assertThat(minioTracing.wrap(() -> "result").call()).isEqualTo("result");
+        assertThat(spans).isEmpty();
+    }
+}
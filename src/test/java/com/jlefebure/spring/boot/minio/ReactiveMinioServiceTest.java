@@ -0,0 +1,97 @@
+/*
+ * Copyright Jordan LEFEBURE © 2019.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.jlefebure.spring.boot.minio;
+
+import io.minio.messages.Item;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.util.StreamUtils;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReactiveMinioServiceTest {
+
+    private final MinioService minioService = mock(MinioService.class);
+    private final ReactiveMinioService reactiveMinioService = new ReactiveMinioService(minioService);
+
+    @Test
+    void listingPullsOnlyRequestedItems() throws Exception {
+        AtomicInteger pulled = new AtomicInteger();
+        when(minioService.stream(Paths.get("prefix"), true)).thenAnswer(invocation -> IntStream.range(0, 1000)
+                .peek(index -> pulled.incrementAndGet())
+                .mapToObj(index -> (Item) new Item("object-" + index) {
+                }));
+        CountDownLatch received = new CountDownLatch(2);
+
+        reactiveMinioService.list(Paths.get("prefix"), true).subscribe(new BaseSubscriber<Item>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                subscription.request(2);
+            }
+
+            @Override
+            protected void hookOnNext(Item value) {
+                received.countDown();
+            }
+        });
+
+        assertThat(received.await(5, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(50);
+        assertThat(pulled.get()).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    void uploadRequestsOneBufferAtATime() throws Exception {
+        List<Long> requests = new CopyOnWriteArrayList<>();
+        Flux<DataBuffer> content = Flux.range(0, 3)
+                .<DataBuffer>map(index -> DefaultDataBufferFactory.sharedInstance.wrap(("part-" + index + ";").getBytes(StandardCharsets.UTF_8)))
+                .doOnRequest(requests::add);
+        AtomicReference<String> uploaded = new AtomicReference<>();
+        doAnswer(invocation -> {
+            InputStream stream = invocation.getArgument(1);
+            uploaded.set(StreamUtils.copyToString(stream, StandardCharsets.UTF_8));
+            return null;
+        }).when(minioService).uploadStream(eq(Paths.get("object")), any(), eq("text/plain"), isNull());
+
+        reactiveMinioService.upload(Paths.get("object"), content, "text/plain", null).block(Duration.ofSeconds(5));
+
+        assertThat(uploaded.get()).isEqualTo("part-0;part-1;part-2;");
+        assertThat(requests).allMatch(request -> request == 1L);
+    }
+}